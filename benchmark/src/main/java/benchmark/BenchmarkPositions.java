@@ -0,0 +1,26 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+
+/**
+ * The positions every benchmark runs against, taken from the perft reference
+ * positions so the benchmarks and the node counts measure the same boards
+ */
+final class BenchmarkPositions {
+    static final String OPENING = "start";
+    static final String MIDDLEGAME = "middlegame";
+    static final String ENDGAME = "endgame";
+
+    private BenchmarkPositions() {
+    }
+
+    static ChessGame load(String name) {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            if (position.name().equals(name)) {
+                return position.toGame();
+            }
+        }
+        throw new IllegalArgumentException("unknown position " + name);
+    }
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChessGame rule queries the client and server call on every move
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private ChessGame game;
+    private ChessBoard board;
+    private ChessGame.TeamColor turn;
+    private ChessGame.TeamColor opponent;
+    // the first legal move in the position, played around each check query
+    private int move;
+    private final MoveList moves = new MoveList();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = BenchmarkPositions.load(position);
+        board = game.getBoard();
+        turn = game.getTeamTurn();
+        opponent = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        game.getAllMoves(turn, moves);
+        move = moves.get(0);
+    }
+
+    /**
+     * validMoves for every square, the way the client highlights legal moves
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                blackhole.consume(game.validMoves(ChessPosition.of(row, col)));
+            }
+        }
+    }
+
+    @Benchmark
+    public Collection<?> getAllMoves() {
+        return game.getAllMoves(turn);
+    }
+
+    /**
+     * getAllMoves into a reused list, which should not allocate
+     */
+    @Benchmark
+    public int getAllMovesReused() {
+        game.getAllMoves(turn, moves);
+        return moves.size();
+    }
+
+    /**
+     * Plays and takes back the move used by isInCheck and isInCheckmate; take
+     * this from their times to get the cost of the query alone
+     */
+    @Benchmark
+    public ChessPiece makeUnmake() {
+        ChessPiece captured = board.makeMove(move);
+        board.unmakeMove(move, captured);
+        return captured;
+    }
+
+    /**
+     * isInCheck for the side to move after a move, as the server asks once per
+     * move played. Making the move clears the board's attack maps, so every
+     * call works them out afresh instead of reading the cached answer.
+     */
+    @Benchmark
+    public boolean isInCheck() {
+        ChessPiece captured = board.makeMove(move);
+        boolean inCheck = game.isInCheck(opponent);
+        board.unmakeMove(move, captured);
+        return inCheck;
+    }
+
+    /**
+     * isInCheckmate after a move, the same way as isInCheck
+     */
+    @Benchmark
+    public boolean isInCheckmate() {
+        ChessPiece captured = board.makeMove(move);
+        boolean inCheckmate = game.isInCheckmate(opponent);
+        board.unmakeMove(move, captured);
+        return inCheckmate;
+    }
+}
@@ -156,27 +156,37 @@ public class WebSocketHandler {
                 notification.setMessage(String.format("%s: %s", username, chessMove));
                 connections.broadcastExcludeUser(gameID, username, notification);
 
-                //test for checkmate
+                //test for checkmate and draws
                 String opponentUsername = switch(userColor) {
                     case "WHITE" -> newGameData.blackUsername();
                     case "BLACK" -> newGameData.whiteUsername();
                     default -> null;
                 };
-                if(chessGame.isInCheckmate(oppositeTeamColor)) {
-                    notifyAll(gameID, username, String.format("%s is in checkmate. %s wins!", opponentUsername, username));
-                    chessGame.setTeamTurn(ChessGame.TeamColor.NONE);
-                    GameData concludedGameData = new GameData(oldGameData.gameID(), oldGameData.whiteUsername(),
-                            oldGameData.blackUsername(), oldGameData.gameName(), chessGame);
-                    dataAccess.updateGame(gameID, concludedGameData);
-                } else if(chessGame.isInCheck(oppositeTeamColor)) {
-                    notifyAll(gameID, username, String.format("%s(%s) was put in check by %s(%s).", opponentUsername, oppositeTeamColor,
-                            username, teamColor));
-                } else if(chessGame.isInStalemate(oppositeTeamColor)) {
-                    notifyAll(gameID, username, "Stalemate: there is no winner.");
-                    chessGame.setTeamTurn(ChessGame.TeamColor.NONE);
-                    GameData concludedGameData = new GameData(oldGameData.gameID(), oldGameData.whiteUsername(),
-                            oldGameData.blackUsername(), oldGameData.gameName(), chessGame);
-                    dataAccess.updateGame(gameID, concludedGameData);
+                switch(chessGame.getGameState(oppositeTeamColor)) {
+                    case CHECKMATE -> {
+                        notifyAll(gameID, username, String.format("%s is in checkmate. %s wins!", opponentUsername, username));
+                        concludeGame(gameID, oldGameData, chessGame);
+                    }
+                    case CHECK -> notifyAll(gameID, username, String.format("%s(%s) was put in check by %s(%s).",
+                            opponentUsername, oppositeTeamColor, username, teamColor));
+                    case STALEMATE -> {
+                        notifyAll(gameID, username, "Stalemate: there is no winner.");
+                        concludeGame(gameID, oldGameData, chessGame);
+                    }
+                    case INSUFFICIENT_MATERIAL -> {
+                        notifyAll(gameID, username, "Draw: neither player has enough material left to checkmate.");
+                        concludeGame(gameID, oldGameData, chessGame);
+                    }
+                    case THREEFOLD_REPETITION, FIVEFOLD_REPETITION -> {
+                        notifyAll(gameID, username, "Draw: the same position has been repeated.");
+                        concludeGame(gameID, oldGameData, chessGame);
+                    }
+                    case FIFTY_MOVE_RULE, SEVENTY_FIVE_MOVE_RULE -> {
+                        notifyAll(gameID, username, "Draw: no capture or pawn move in the last fifty moves.");
+                        concludeGame(gameID, oldGameData, chessGame);
+                    }
+                    case ONGOING -> {
+                    }
                 }
             } else if (Objects.equals(chessGame.getTeamTurn(), ChessGame.TeamColor.NONE)) {
                 var error = new ServerMessage(ERROR);
@@ -229,6 +239,13 @@ public class WebSocketHandler {
         }
     }
 
+    private void concludeGame(int gameID, GameData oldGameData, ChessGame chessGame) throws DataAccessException {
+        chessGame.setTeamTurn(ChessGame.TeamColor.NONE);
+        GameData concludedGameData = new GameData(oldGameData.gameID(), oldGameData.whiteUsername(),
+                oldGameData.blackUsername(), oldGameData.gameName(), chessGame);
+        dataAccess.updateGame(gameID, concludedGameData);
+    }
+
     private GameData removeColorFromGame(GameData oldGameData, String userColor) {
         if(Objects.equals(userColor, "WHITE")) {
             return new GameData(oldGameData.gameID(), null, oldGameData.blackUsername(), oldGameData.gameName(), oldGameData.game());
@@ -0,0 +1,141 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit square masks (bitboards)
+ * <p>
+ * Square 0 is a1 (row 1, column 1), square 7 is h1 and square 63 is h8, so a
+ * square index is (row - 1) * 8 + (column - 1).
+ */
+public final class Bitboard {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long NOT_FILE_A = ~FILE_A;
+    private static final long NOT_FILE_H = ~FILE_H;
+    private static final long NOT_FILE_AB = ~(FILE_A | FILE_A << 1);
+    private static final long NOT_FILE_GH = ~(FILE_H | FILE_H >>> 1);
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[] WHITE_PAWN_ATTACKS = new long[64];
+    private static final long[] BLACK_PAWN_ATTACKS = new long[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            long b = bit(square);
+            KNIGHT_ATTACKS[square] = (b << 17 & NOT_FILE_A) | (b << 15 & NOT_FILE_H)
+                    | (b << 10 & NOT_FILE_AB) | (b << 6 & NOT_FILE_GH)
+                    | (b >>> 6 & NOT_FILE_AB) | (b >>> 10 & NOT_FILE_GH)
+                    | (b >>> 15 & NOT_FILE_A) | (b >>> 17 & NOT_FILE_H);
+            long sides = (b << 1 & NOT_FILE_A) | (b >>> 1 & NOT_FILE_H);
+            KING_ATTACKS[square] = sides | (b | sides) << 8 | (b | sides) >>> 8;
+            WHITE_PAWN_ATTACKS[square] = (b << 9 & NOT_FILE_A) | (b << 7 & NOT_FILE_H);
+            BLACK_PAWN_ATTACKS[square] = (b >>> 7 & NOT_FILE_A) | (b >>> 9 & NOT_FILE_H);
+        }
+    }
+
+    private Bitboard() {
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(square);
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return the squares a knight on the given square attacks
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a king on the given square attacks
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color on the given square attacks
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return color == ChessGame.TeamColor.BLACK ? BLACK_PAWN_ATTACKS[square] : WHITE_PAWN_ATTACKS[square];
+    }
+
+    /**
+     * @return every square attacked by the given pawns
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, long pawns) {
+        if (color == ChessGame.TeamColor.BLACK) {
+            return (pawns >>> 7 & NOT_FILE_A) | (pawns >>> 9 & NOT_FILE_H);
+        }
+        return (pawns << 9 & NOT_FILE_A) | (pawns << 7 & NOT_FILE_H);
+    }
+
+    /**
+     * Shifts every pawn in the mask one square towards the opponent
+     */
+    public static long pawnPush(ChessGame.TeamColor color, long pawns) {
+        return color == ChessGame.TeamColor.BLACK ? pawns >>> 8 : pawns << 8;
+    }
+
+    /**
+     * @param occupied every occupied square; the first piece on each ray is included in the result
+     * @return the squares a rook on the given square attacks
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return SlidingAttacks.rook(square, occupied);
+    }
+
+    /**
+     * @param occupied every occupied square; the first piece on each ray is included in the result
+     * @return the squares a bishop on the given square attacks
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return SlidingAttacks.bishop(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return SlidingAttacks.rook(square, occupied) | SlidingAttacks.bishop(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between a and b if they share a rank, file or
+     * diagonal, otherwise 0
+     */
+    public static long between(int a, int b) {
+        return SlidingAttacks.between(a, b);
+    }
+
+    /**
+     * @return the full rank, file or diagonal running through a and b, or 0 if
+     * they are not aligned
+     */
+    public static long line(int a, int b) {
+        return SlidingAttacks.line(a, b);
+    }
+}
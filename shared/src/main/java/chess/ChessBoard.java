@@ -1,7 +1,8 @@
 package chess;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
-import java.util.Objects;
 
 import chess.ChessPiece.PieceType;
 import chess.ChessGame.TeamColor;
@@ -11,14 +12,85 @@ import chess.ChessGame.TeamColor;
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
+ * <p>
+ * Any number of threads may read a board at once, including one just loaded
+ * by Gson. A board that is being changed must not be used by any other thread
+ * until the change is done.
  */
 public class ChessBoard {
+    // marks an attack map slot as not computed; a team attacking every square
+    // is simply never cached
+    private static final long NOT_COMPUTED = -1L;
+    private static final VarHandle ATTACK_MAPS = MethodHandles.arrayElementVarHandle(long[].class);
+
     private ChessPiece[][] squares = new ChessPiece[8][8];
 
+    // bitboard index over squares. Transient so the serialized form stays the
+    // plain 8x8 array; it is rebuilt whenever squares is swapped out
+    // (setSquares, or a Gson-built board). A rebuild happens on first read, so
+    // it is built off to the side and published with one volatile write: two
+    // threads reading a freshly loaded board may both build one, but each
+    // builds a complete index and neither can see the other's half-done work.
+    private transient volatile Index index = new Index(squares);
+
+    /**
+     * Everything the board keeps alongside squares, for the squares array it
+     * was built from
+     */
+    private static final class Index {
+        final ChessPiece[][] squares;
+        // one mask per color/type pair plus one per color
+        final long[] pieceMasks = new long[12];
+        final long[] colorMasks = new long[2];
+        // square index of each team's king, -1 when it has none
+        final int[] kingSquares = {-1, -1};
+        // Zobrist key of the pieces on the board, see Zobrist
+        long zobristKey;
+        // squares attacked by each team, or NOT_COMPUTED until asked for after the
+        // board last changed. The map and whether it is current are one long,
+        // written with release and read with acquire through ATTACK_MAPS, so a
+        // reader on another thread sees a whole map or the sentinel, never a
+        // current flag with an old map
+        final long[] attackMaps = {NOT_COMPUTED, NOT_COMPUTED};
+        // running evaluation sums per team, see Evaluation
+        final int[] middlegameScores = new int[2];
+        final int[] endgameScores = new int[2];
+        int phase;
+
+        Index(ChessPiece[][] squares) {
+            this.squares = squares;
+        }
+
+        Index(ChessPiece[][] squares, Index other) {
+            this.squares = squares;
+            System.arraycopy(other.pieceMasks, 0, pieceMasks, 0, pieceMasks.length);
+            System.arraycopy(other.colorMasks, 0, colorMasks, 0, colorMasks.length);
+            System.arraycopy(other.kingSquares, 0, kingSquares, 0, kingSquares.length);
+            zobristKey = other.zobristKey;
+            System.arraycopy(other.middlegameScores, 0, middlegameScores, 0, middlegameScores.length);
+            System.arraycopy(other.endgameScores, 0, endgameScores, 0, endgameScores.length);
+            phase = other.phase;
+        }
+    }
+
     public ChessBoard() {
 
     }
 
+    /**
+     * Creates an independent copy of another board. Pieces are immutable, so
+     * only the arrays and bitboards are copied.
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        Index otherIndex = other.index();
+        for (int i = 0; i < 8; i++) {
+            squares[i] = otherIndex.squares[i].clone();
+        }
+        index = new Index(squares, otherIndex);
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -26,8 +98,19 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(Bitboard.square(position), piece);
+    }
 
+    private void setPiece(int square, ChessPiece piece) {
+        Index index = index();
+        ChessPiece oldPiece = index.squares[square >>> 3][square & 7];
+        if (oldPiece != null) {
+            toggleMasks(index, oldPiece, square);
+        }
+        index.squares[square >>> 3][square & 7] = piece;
+        if (piece != null) {
+            toggleMasks(index, piece, square);
+        }
     }
 
     /**
@@ -41,14 +124,225 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
     public ChessPiece[][] getSquares() {
         return squares;
     }
 
+    /**
+     * Replaces the whole board. The bitboard index is rebuilt on next use, so
+     * changes made directly to an array returned by getSquares are not seen
+     * unless it is handed back through here.
+     */
     public void setSquares(ChessPiece[][] squares) {
         this.squares = squares;
     }
 
+    /**
+     * @return mask of the squares holding the given piece
+     */
+    public long getPieceMask(TeamColor color, PieceType type) {
+        return index().pieceMasks[maskIndex(color, type)];
+    }
+
+    /**
+     * @return mask of the squares holding any piece of the given team
+     */
+    public long getColorMask(TeamColor color) {
+        return index().colorMasks[colorIndex(color)];
+    }
+
+    /**
+     * @return mask of every occupied square
+     */
+    public long getOccupiedMask() {
+        long[] colorMasks = index().colorMasks;
+        return colorMasks[0] | colorMasks[1];
+    }
+
+    /**
+     * Gets a 64-bit hash of the piece placement, kept up to date as pieces are
+     * added and moved. Equal boards always have equal keys. It does not
+     * include the side to move; see ChessGame.getPositionKey for that.
+     *
+     * @return the Zobrist key of this board
+     */
+    public long getZobristKey() {
+        return index().zobristKey;
+    }
+
+    /**
+     * Gets the static evaluation of the position, kept up to date as pieces are
+     * added and moved, so reading it is a few adds. See Evaluation.
+     *
+     * @param color the team whose point of view to take
+     * @return centipawns, positive when that team is ahead
+     */
+    int evaluate(TeamColor color) {
+        Index index = index();
+        int us = colorIndex(color);
+        int them = us ^ 1;
+        return Evaluation.taper(index.middlegameScores[us] - index.middlegameScores[them],
+                index.endgameScores[us] - index.endgameScores[them], index.phase);
+    }
+
+    /**
+     * @return square index (see Bitboard) of the team's king, or -1 if it has none
+     */
+    int getKingSquare(TeamColor color) {
+        return index().kingSquares[colorIndex(color)];
+    }
+
+    /**
+     * @return where the team's king is, or null if it has none
+     */
+    public ChessPosition getKingPosition(TeamColor color) {
+        int square = getKingSquare(color);
+        return square < 0 ? null : Bitboard.position(square);
+    }
+
+    /**
+     * Gets the pieces of a team that attack a square
+     *
+     * @param square   square index (see Bitboard)
+     * @param byColor  the attacking team
+     * @param occupied occupancy to use for sliding pieces
+     * @return mask of the attacking pieces
+     */
+    long attackersTo(int square, TeamColor byColor, long occupied) {
+        long[] pieceMasks = index().pieceMasks;
+        int base = colorIndex(byColor) * 6;
+        TeamColor victim = byColor == TeamColor.BLACK ? TeamColor.WHITE : TeamColor.BLACK;
+        long queens = pieceMasks[base + PieceType.QUEEN.ordinal()];
+        long rooks = pieceMasks[base + PieceType.ROOK.ordinal()] | queens;
+        long bishops = pieceMasks[base + PieceType.BISHOP.ordinal()] | queens;
+        return (Bitboard.pawnAttacks(victim, square) & pieceMasks[base + PieceType.PAWN.ordinal()])
+                | (Bitboard.knightAttacks(square) & pieceMasks[base + PieceType.KNIGHT.ordinal()])
+                | (Bitboard.kingAttacks(square) & pieceMasks[base + PieceType.KING.ordinal()])
+                | (Bitboard.rookAttacks(square, occupied) & rooks)
+                | (Bitboard.bishopAttacks(square, occupied) & bishops);
+    }
+
+    /**
+     * Gets every square a team attacks, counting squares holding its own pieces.
+     * The map is cached until the board next changes, so repeated queries on
+     * the same position are a single mask read.
+     *
+     * @param byColor the attacking team
+     * @return mask of attacked squares
+     */
+    public long getAttackedSquares(TeamColor byColor) {
+        Index index = index();
+        int color = colorIndex(byColor);
+        long attacks = (long) ATTACK_MAPS.getAcquire(index.attackMaps, color);
+        if (attacks == NOT_COMPUTED) {
+            attacks = attacksFrom(index.pieceMasks, byColor, index.colorMasks[0] | index.colorMasks[1]);
+            ATTACK_MAPS.setRelease(index.attackMaps, color, attacks);
+        }
+        return attacks;
+    }
+
+    /**
+     * Builds the attack map of a team from the bitboards
+     *
+     * @param byColor  the attacking team
+     * @param occupied occupancy to use for sliding pieces
+     * @return mask of attacked squares
+     */
+    long attacksFrom(TeamColor byColor, long occupied) {
+        return attacksFrom(index().pieceMasks, byColor, occupied);
+    }
+
+    private static long attacksFrom(long[] pieceMasks, TeamColor byColor, long occupied) {
+        int base = colorIndex(byColor) * 6;
+        long attacks = Bitboard.pawnAttacks(byColor, pieceMasks[base + PieceType.PAWN.ordinal()]);
+        long kings = pieceMasks[base + PieceType.KING.ordinal()];
+        while (kings != 0) {
+            attacks |= Bitboard.kingAttacks(Long.numberOfTrailingZeros(kings));
+            kings &= kings - 1;
+        }
+        long knights = pieceMasks[base + PieceType.KNIGHT.ordinal()];
+        while (knights != 0) {
+            attacks |= Bitboard.knightAttacks(Long.numberOfTrailingZeros(knights));
+            knights &= knights - 1;
+        }
+        long queens = pieceMasks[base + PieceType.QUEEN.ordinal()];
+        long rooks = pieceMasks[base + PieceType.ROOK.ordinal()] | queens;
+        while (rooks != 0) {
+            attacks |= Bitboard.rookAttacks(Long.numberOfTrailingZeros(rooks), occupied);
+            rooks &= rooks - 1;
+        }
+        long bishops = pieceMasks[base + PieceType.BISHOP.ordinal()] | queens;
+        while (bishops != 0) {
+            attacks |= Bitboard.bishopAttacks(Long.numberOfTrailingZeros(bishops), occupied);
+            bishops &= bishops - 1;
+        }
+        return attacks;
+    }
+
+    /**
+     * @return true if any piece of the given team attacks the square
+     */
+    public boolean isAttacked(ChessPosition position, TeamColor byColor) {
+        return (getAttackedSquares(byColor) & Bitboard.bit(Bitboard.square(position))) != 0;
+    }
+
+    private static int colorIndex(TeamColor color) {
+        return color == TeamColor.BLACK ? 1 : 0;
+    }
+
+    private static int maskIndex(TeamColor color, PieceType type) {
+        return colorIndex(color) * 6 + type.ordinal();
+    }
+
+    private static void toggleMasks(Index index, ChessPiece piece, int square) {
+        long bit = Bitboard.bit(square);
+        int pieceIndex = maskIndex(piece.getTeamColor(), piece.getPieceType());
+        int color = colorIndex(piece.getTeamColor());
+        long[] pieceMasks = index.pieceMasks;
+        pieceMasks[pieceIndex] ^= bit;
+        index.colorMasks[color] ^= bit;
+        index.zobristKey ^= Zobrist.pieceKey(pieceIndex, square);
+        ATTACK_MAPS.setRelease(index.attackMaps, 0, NOT_COMPUTED);
+        ATTACK_MAPS.setRelease(index.attackMaps, 1, NOT_COMPUTED);
+        //toggling sets the bit when the piece arrives and clears it when it leaves
+        int sign = (pieceMasks[pieceIndex] & bit) != 0 ? 1 : -1;
+        index.middlegameScores[color] += sign * Evaluation.middlegame(pieceIndex, square);
+        index.endgameScores[color] += sign * Evaluation.endgame(pieceIndex, square);
+        index.phase += sign * Evaluation.phaseWeight(piece.getPieceType());
+        if (piece.getPieceType() == PieceType.KING) {
+            //hand-built boards may hold extra kings, so fall back to the lowest remaining one
+            long kings = pieceMasks[pieceIndex];
+            index.kingSquares[color] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+        }
+    }
+
+    /**
+     * @return the index for the current squares array, building it first if
+     * squares was replaced
+     */
+    private Index index() {
+        Index current = index;
+        ChessPiece[][] squares = this.squares;
+        if (current.squares == squares) {
+            return current;
+        }
+        //squares was replaced, so rebuild the index from scratch where no other reader can see it
+        Index rebuilt = new Index(squares);
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                if (squares[i][j] != null) {
+                    toggleMasks(rebuilt, squares[i][j], i * 8 + j);
+                }
+            }
+        }
+        index = rebuilt;
+        return rebuilt;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -58,14 +352,11 @@ public class ChessBoard {
         if (color == TeamColor.BLACK) {
             rank = 7;
         }
-        squares[rank][0] = new ChessPiece(color, PieceType.ROOK);
-        squares[rank][1] = new ChessPiece(color, PieceType.KNIGHT);
-        squares[rank][2] = new ChessPiece(color, PieceType.BISHOP);
-        squares[rank][3] = new ChessPiece(color, PieceType.QUEEN);
-        squares[rank][4] = new ChessPiece(color, PieceType.KING);
-        squares[rank][5] = new ChessPiece(color, PieceType.BISHOP);
-        squares[rank][6] = new ChessPiece(color, PieceType.KNIGHT);
-        squares[rank][7] = new ChessPiece(color, PieceType.ROOK);
+        PieceType[] backRank = {PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+                PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK};
+        for (int i = 0; i < 8; i++) {
+            addPiece(ChessPosition.of(rank + 1, i + 1), ChessPiece.of(color, backRank[i]));
+        }
 
         //front rank
         rank = 1;
@@ -73,7 +364,7 @@ public class ChessBoard {
             rank = 6;
         }
         for (int i = 0; i < 8; i++) {
-            squares[rank][i] = new ChessPiece(color, PieceType.PAWN);
+            addPiece(ChessPosition.of(rank + 1, i + 1), ChessPiece.of(color, PieceType.PAWN));
         }
     }
 
@@ -91,7 +382,7 @@ public class ChessBoard {
         //doesn't think about the move at all, just takes a piece and puts it in a destination, replacing whatever is there
         ChessPiece myPiece = getPiece(move.getStartPosition());
         if (move.getPromotionPiece() != null) {
-            ChessPiece newPiece = new ChessPiece(myPiece.getTeamColor(), move.getPromotionPiece());
+            ChessPiece newPiece = ChessPiece.of(myPiece.getTeamColor(), move.getPromotionPiece());
             this.addPiece(move.getEndPosition(), newPiece);
         } else {
             this.addPiece(move.getEndPosition(), myPiece);
@@ -99,6 +390,64 @@ public class ChessBoard {
         this.addPiece(move.getStartPosition(), null);
     }
 
+    /**
+     * Makes a move on the board and records what it replaced
+     *
+     * @param move the move to make; it is not checked for legality
+     * @return the record to pass to unmakeMove to take the move back
+     */
+    public MoveUndo makeMove(ChessMove move) {
+        ChessPiece movedPiece = getPiece(move.getStartPosition());
+        ChessPiece capturedPiece = getPiece(move.getEndPosition());
+        movePiece(move);
+        return new MoveUndo(move, movedPiece, capturedPiece);
+    }
+
+    /**
+     * Takes back a move made with makeMove. Moves must be taken back in the
+     * reverse order they were made.
+     *
+     * @param undo the record returned by makeMove
+     */
+    public void unmakeMove(MoveUndo undo) {
+        addPiece(undo.move().getStartPosition(), undo.movedPiece());
+        addPiece(undo.move().getEndPosition(), undo.capturedPiece());
+    }
+
+    /**
+     * Makes a packed move (see Move) without allocating anything
+     *
+     * @param move the move to make; it is not checked for legality
+     * @return the piece that was captured, or null, to pass to unmakeMove
+     */
+    public ChessPiece makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece movedPiece = getPiece(from);
+        ChessPiece capturedPiece = getPiece(to);
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        setPiece(from, null);
+        setPiece(to, promotion == null ? movedPiece : ChessPiece.of(movedPiece.getTeamColor(), promotion));
+        return capturedPiece;
+    }
+
+    /**
+     * Takes back a packed move made with makeMove(int)
+     *
+     * @param move          the move that was made
+     * @param capturedPiece the value makeMove returned
+     */
+    public void unmakeMove(int move, ChessPiece capturedPiece) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = getPiece(to);
+        if (Move.isPromotion(move)) {
+            piece = ChessPiece.of(piece.getTeamColor(), PieceType.PAWN);
+        }
+        setPiece(from, piece);
+        setPiece(to, capturedPiece);
+    }
+
     @Override
     public String toString() {
         StringBuilder build = new StringBuilder();
@@ -125,11 +474,14 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        if (getZobristKey() != that.getZobristKey()) {
+            return false;
+        }
+        return Arrays.equals(index().pieceMasks, that.index().pieceMasks);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 }
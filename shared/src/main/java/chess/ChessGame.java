@@ -1,7 +1,11 @@
 package chess;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import chess.ChessPiece.PieceType;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -10,11 +14,61 @@ import java.util.Collection;
  * signature of the existing methods.
  */
 public class ChessGame {
+    // squares a1, c1, ... that a dark-squared bishop stands on
+    private static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+
     TeamColor turn = TeamColor.WHITE;
-    ChessBoard board = new ChessBoard();
+    ChessBoard board;
+    // moves since the last capture or pawn move
+    private int halfmoveClock;
+    // starts at 1 and goes up after each black move, as in FEN
+    private int fullmoveNumber = 1;
+    // position keys since the last capture or pawn move, oldest first, with
+    // how many times each position had occurred when it was reached; no
+    // earlier position can come back, so nothing older needs keeping. Both are
+    // saved with the game on purpose: the server reloads the game for every
+    // move, and repetitions must still count across those reloads. A capture
+    // or pawn move empties them, and the 75-move rule ends the game before
+    // they pass 150 entries.
+    private long[] keyHistory = new long[16];
+    private int[] repetitionCounts = new int[16];
+    private int historySize;
+    // how often each key in keyHistory occurs, only used by makeMove and
+    // rebuilt from keyHistory there after the game is loaded
+    private transient Map<Long, Integer> repetitions;
 
     public ChessGame() {
+        board = new ChessBoard();
         board.resetBoard();
+        startHistory(0);
+    }
+
+    /**
+     * Sets up a game at a position read from elsewhere (see Fen and
+     * PositionCodec), with a fresh history starting there. Unlike the public
+     * constructor it does not lay out a starting board first.
+     */
+    ChessGame(ChessBoard board, TeamColor turn, int halfmoveClock, int fullmoveNumber) {
+        this.board = board;
+        this.turn = turn;
+        this.fullmoveNumber = fullmoveNumber;
+        startHistory(halfmoveClock);
+    }
+
+    /**
+     * Creates an independent copy of another game, for example to hand to
+     * another thread
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        turn = other.turn;
+        board = new ChessBoard(other.board);
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        keyHistory = Arrays.copyOf(other.keyHistory, other.keyHistory.length);
+        repetitionCounts = Arrays.copyOf(other.repetitionCounts, other.repetitionCounts.length);
+        historySize = other.historySize;
     }
 
     /**
@@ -31,6 +85,39 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         turn = team;
+        startHistory(0);
+    }
+
+    /**
+     * Gets a 64-bit key for the current position: the board's Zobrist key
+     * combined with whose turn it is. Positions that differ only in the side
+     * to move get different keys.
+     *
+     * @return the position key
+     */
+    public long getPositionKey() {
+        long key = board.getZobristKey();
+        return turn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    /**
+     * Scores the position for game lists, score bars and post-game graphs.
+     * The board keeps the score up to date as pieces move, so this costs a few
+     * adds. It counts material and piece placement only; threats and tactics
+     * need a Search.
+     *
+     * @return centipawns from white's point of view, positive when white is ahead
+     */
+    public int getScore() {
+        return board.evaluate(TeamColor.WHITE);
+    }
+
+    /**
+     * @param teamColor the team whose point of view to take
+     * @return the same score as getScore, positive when teamColor is ahead
+     */
+    public int getScore(TeamColor teamColor) {
+        return board.evaluate(teamColor);
     }
 
     /**
@@ -42,6 +129,117 @@ public class ChessGame {
         NONE
     }
 
+    /**
+     * Enum identifying where a team stands at the start of its turn
+     */
+    public enum GameState {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        INSUFFICIENT_MATERIAL,
+        THREEFOLD_REPETITION,
+        FIVEFOLD_REPETITION,
+        FIFTY_MOVE_RULE,
+        SEVENTY_FIVE_MOVE_RULE;
+
+        /**
+         * @return true if the game is drawn in this state
+         */
+        public boolean isDraw() {
+            return this != ONGOING && this != CHECK && this != CHECKMATE;
+        }
+    }
+
+    /**
+     * Works out where a team stands in one pass: checkmate and stalemate first,
+     * then the draws (too little material left to mate, the same position
+     * three or five times, or fifty or seventy-five moves by each side without
+     * a capture or pawn move), then check. Move generation stops at the first
+     * legal move found, so this is much cheaper than calling isInCheck,
+     * isInCheckmate and isInStalemate in turn.
+     *
+     * @param teamColor the team to evaluate
+     * @return the state of the game for that team
+     */
+    public GameState getGameState(TeamColor teamColor) {
+        MoveGenerator generator = new MoveGenerator(board, teamColor);
+        boolean inCheck = generator.getCheckers() != 0;
+        if (!generator.hasAnyMove()) {
+            return inCheck ? GameState.CHECKMATE : GameState.STALEMATE;
+        }
+        if (isInsufficientMaterial()) {
+            return GameState.INSUFFICIENT_MATERIAL;
+        }
+        int repetitionCount = getRepetitionCount();
+        int clock = getHalfmoveClock();
+        if (repetitionCount >= 5) {
+            return GameState.FIVEFOLD_REPETITION;
+        }
+        if (clock >= 150) {
+            return GameState.SEVENTY_FIVE_MOVE_RULE;
+        }
+        if (repetitionCount >= 3) {
+            return GameState.THREEFOLD_REPETITION;
+        }
+        if (clock >= 100) {
+            return GameState.FIFTY_MOVE_RULE;
+        }
+        return inCheck ? GameState.CHECK : GameState.ONGOING;
+    }
+
+    /**
+     * @return moves made by either side since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return historyIsCurrent() ? halfmoveClock : 0;
+    }
+
+    /**
+     * @return the number of the current move, starting at 1 and going up after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Gets how many times the current position, with the same side to move,
+     * has occurred so far, counting this time. Looking it up costs the same
+     * however long the game has run.
+     *
+     * @return 1 for a position seen for the first time
+     */
+    public int getRepetitionCount() {
+        return historyIsCurrent() ? repetitionCounts[historySize - 1] : 1;
+    }
+
+    /**
+     * Determines if neither team has enough material left to checkmate: bare
+     * kings, a king and one knight or bishop against a bare king, or kings and
+     * bishops only with every bishop on the same colour of square. The board
+     * keeps a mask per piece type, so this is a few bit counts.
+     *
+     * @return true if the position is dead
+     */
+    public boolean isInsufficientMaterial() {
+        long heavy = 0;
+        long knights = 0;
+        long bishops = 0;
+        for (TeamColor color : new TeamColor[]{TeamColor.WHITE, TeamColor.BLACK}) {
+            heavy |= board.getPieceMask(color, PieceType.PAWN) | board.getPieceMask(color, PieceType.ROOK)
+                    | board.getPieceMask(color, PieceType.QUEEN);
+            knights |= board.getPieceMask(color, PieceType.KNIGHT);
+            bishops |= board.getPieceMask(color, PieceType.BISHOP);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & DARK_SQUARES) == 0 || (bishops & ~DARK_SQUARES) == 0);
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -51,102 +249,60 @@ public class ChessGame {
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = board.getPiece(startPosition);
-        Collection<ChessMove> moves;
         if (piece == null) {
             return null;
         }
-
-        moves = piece.pieceMoves(board, startPosition);
-
-        TeamColor color = piece.getTeamColor();
-        Collection<ChessMove> legalMoves = new ArrayList<>();
-        for (var move : moves) {
-
-            ChessBoard storageBoard = new ChessBoard();
-
-            ChessPiece[][] boardDeepCopy = new ChessPiece[8][8];
-
-            for (int i = 0; i < 8; i++) {
-                for (int j = 0; j < 8; j++) {
-                    ChessPosition copyPos = new ChessPosition(i + 1, j + 1);
-                    if (board.getPiece(copyPos) == null) {
-                        continue;
-                    }
-                    ChessPiece newPiece = new ChessPiece(board.getPiece(copyPos).getTeamColor(), board.getPiece(copyPos).getPieceType());
-
-                    boardDeepCopy[i][j] = newPiece;
-                }
-            }
-
-
-            storageBoard.setSquares(boardDeepCopy);
-            board.movePiece(move);
-            if (!isInCheck(color)) {
-                legalMoves.add(move);
-            }
-            board.setSquares(storageBoard.getSquares());
-        }
-
-        return legalMoves;
+        return new MoveGenerator(board, piece.getTeamColor()).movesFrom(Bitboard.square(startPosition));
     }
 
-    boolean checkLaser(ChessPosition startPosition, int addRow, int addCol) {
-        //returns true if there is a bishop, rook or queen threatening your position from the given direction
-        int distance = 1;
-        int myRow = startPosition.getRow();
-        int myCol = startPosition.getColumn();
+    /**
+     * Gets valid moves for a piece as packed moves (see Move), without
+     * allocating move objects
+     *
+     * @param startPosition the piece to get valid moves for
+     * @param moves         list to fill; it is cleared first and left empty if
+     *                      there is no piece at startPosition
+     */
+    public void validMoves(ChessPosition startPosition, MoveList moves) {
+        moves.clear();
         ChessPiece piece = board.getPiece(startPosition);
-
-        while (true) {
-            ChessPosition checkPos = new ChessPosition(myRow + addRow * distance, myCol + addCol * distance);
-            if (!checkPos.isInBounds()) //found an edge or piece of your own team
-            {
-                return false;
-            }
-            if (board.getPiece(checkPos) != null) {   //there is in fact a piece there
-                if (board.getPiece(checkPos).getTeamColor() == piece.getTeamColor()) {
-                    return false;
-                }
-                ChessPiece.PieceType threatType = board.getPiece(checkPos).getPieceType();
-                if (Math.abs(addRow) == Math.abs(addCol)) { // diagonal
-                    return threatType == ChessPiece.PieceType.BISHOP || threatType == ChessPiece.PieceType.QUEEN;
-                } else { // cardinal
-                    return threatType == ChessPiece.PieceType.ROOK || threatType == ChessPiece.PieceType.QUEEN;
-                }
-            }
-            distance++;
-
+        if (piece != null) {
+            new MoveGenerator(board, piece.getTeamColor()).generateFrom(Bitboard.square(startPosition), moves);
         }
     }
 
-    boolean cardinalThreat(ChessPosition startPosition) {
-        return checkLaser(startPosition, 0, 1) ||
-                checkLaser(startPosition, 0, -1) ||
-                checkLaser(startPosition, 1, 0) ||
-                checkLaser(startPosition, -1, 0);
+    /**
+     * Gets every valid move for a team as packed moves (see Move)
+     *
+     * @param teamColor the team to get moves for
+     * @param moves     list to fill; it is cleared first
+     */
+    public void getAllMoves(TeamColor teamColor, MoveList moves) {
+        moves.clear();
+        new MoveGenerator(board, teamColor).generate(moves);
     }
 
-    boolean diagonalThreat(ChessPosition startPosition) {
-        return checkLaser(startPosition, 1, 1) ||
-                checkLaser(startPosition, 1, -1) ||
-                checkLaser(startPosition, -1, 1) ||
-                checkLaser(startPosition, -1, -1);
+    /**
+     * Gets every valid move for a team
+     *
+     * @param teamColor the team to get moves for
+     * @return all legal moves for that team's pieces
+     */
+    public Collection<ChessMove> getAllMoves(TeamColor teamColor) {
+        return new MoveGenerator(board, teamColor).allMoves();
     }
 
-    public Collection<ChessMove> getAllMoves(TeamColor teamColor) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition checkPos = new ChessPosition(i, j);
-                if (board.getPiece(checkPos) == null) {
-                    continue;
-                }
-                if (board.getPiece(checkPos).getTeamColor() == teamColor) {
-                    moves.addAll(validMoves(checkPos));
-                }
-            }
-        }
-        return moves;
+    /**
+     * Gets the valid moves for a team one at a time: captures first (most
+     * valuable victim first), then promotions, then quiet moves. Each group is
+     * only generated once the one before it is used up, so stopping early saves
+     * the rest of the work.
+     *
+     * @param teamColor the team to get moves for
+     * @return an iterator over the team's legal moves; the game must not change while it is in use
+     */
+    public MovePicker moveIterator(TeamColor teamColor) {
+        return new MovePicker(board, teamColor);
     }
 
     /**
@@ -156,101 +312,111 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-
-        Collection<ChessMove> legalMoves = validMoves(move.getStartPosition());
-        if (legalMoves == null || legalMoves.isEmpty()) {
+        //takes a move, ensures that it is valid, then executes it
+        if (!isLegal(move)) {
             throw new InvalidMoveException("not a legal move");
         }
-        if (board.getPiece(move.getStartPosition()).getTeamColor() != turn) {
-            throw new InvalidMoveException("not a legal move");
+        if (!historyIsCurrent()) {
+            //the board was changed other than through makeMove
+            startHistory(0);
         }
-        if (legalMoves.contains(move)) {
-            board.movePiece(move);
-            turn = switch (board.getPiece(move.getEndPosition()).getTeamColor()) {
-                case WHITE -> TeamColor.BLACK;
-                case BLACK -> TeamColor.WHITE;
-                case NONE -> TeamColor.NONE;
-            };
+        boolean irreversible = board.getPiece(move.getEndPosition()) != null
+                || board.getPiece(move.getStartPosition()).getPieceType() == PieceType.PAWN;
+        board.movePiece(move);
+        if (turn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        turn = turn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        if (irreversible) {
+            halfmoveClock = 0;
+            historySize = 0;
+            if (repetitions != null) {
+                repetitions.clear();
+            }
         } else {
-            throw new InvalidMoveException("not a legal move");
+            halfmoveClock++;
         }
-        //takes a move, ensures that it is valid, then executes it
+        pushKey(getPositionKey());
+    }
 
+    private void pushKey(long key) {
+        if (repetitions == null) {
+            repetitions = new HashMap<>();
+            for (int i = 0; i < historySize; i++) {
+                repetitions.merge(keyHistory[i], 1, Integer::sum);
+            }
+        }
+        if (historySize == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, historySize * 2);
+            repetitionCounts = Arrays.copyOf(repetitionCounts, historySize * 2);
+        }
+        keyHistory[historySize] = key;
+        repetitionCounts[historySize++] = repetitions.merge(key, 1, Integer::sum);
     }
 
     /**
-     * Determines if the given team is in check
+     * Starts the history afresh at the current position, for when the board
+     * or turn is set directly rather than reached through makeMove
+     */
+    private void startHistory(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+        keyHistory[0] = getPositionKey();
+        repetitionCounts[0] = 1;
+        historySize = 1;
+        repetitions = null;
+    }
+
+    /**
+     * @return true if the history ends at the current position, which only
+     * fails to hold if the board was changed other than through makeMove or
+     * the game was saved before it kept a history
+     */
+    private boolean historyIsCurrent() {
+        return historySize > 0 && keyHistory[historySize - 1] == getPositionKey();
+    }
+
+    /**
+     * Checks a single move for the team whose turn it is, without generating
+     * any other moves: the piece must belong to that team, reach the target
+     * along its own movement rules with the path clear, name a promotion
+     * exactly when a pawn reaches the last rank, and not leave its own king in
+     * check
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move the move to check
+     * @return true if makeMove would accept the move
      */
-    private boolean checkSpace(int row, int col, TeamColor teamColor, ChessPiece.PieceType type) {
-        ChessPosition checkPos = new ChessPosition(row, col);
-        if (!checkPos.isInBounds() || board.getPiece(checkPos) == null) {
+    public boolean isLegal(ChessMove move) {
+        if (move == null || !onBoard(move.getStartPosition()) || !onBoard(move.getEndPosition())) {
             return false;
         }
-
-        return board.getPiece(checkPos).getTeamColor() != teamColor && board.getPiece(checkPos).getPieceType() == type;
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if (piece == null || piece.getTeamColor() != turn) {
+            return false;
+        }
+        return new MoveGenerator(board, turn).isLegal(Move.fromChessMove(move, board));
     }
 
-    private boolean pawnKnightThreat(ChessPosition kingPos, TeamColor teamColor) {
-        int kingRow = kingPos.getRow();
-        int kingCol = kingPos.getColumn();
-        int pawnThreatDirection = switch (teamColor) { //pawns will threaten from different sides
-            case WHITE -> 1;
-            case BLACK -> -1;
-            case NONE -> 1;
-        };
-
-
-        return checkSpace(kingRow + pawnThreatDirection, kingCol + 1, teamColor, ChessPiece.PieceType.PAWN) ||
-                checkSpace(kingRow + pawnThreatDirection, kingCol - 1, teamColor, ChessPiece.PieceType.PAWN) ||
-
-                checkSpace(kingRow + 2, kingCol + 1, teamColor, ChessPiece.PieceType.KNIGHT) ||
-                checkSpace(kingRow + 2, kingCol - 1, teamColor, ChessPiece.PieceType.KNIGHT) ||
-                checkSpace(kingRow - 2, kingCol + 1, teamColor, ChessPiece.PieceType.KNIGHT) ||
-                checkSpace(kingRow - 2, kingCol - 1, teamColor, ChessPiece.PieceType.KNIGHT) ||
-                checkSpace(kingRow + 1, kingCol + 2, teamColor, ChessPiece.PieceType.KNIGHT) ||
-                checkSpace(kingRow + 1, kingCol - 2, teamColor, ChessPiece.PieceType.KNIGHT) ||
-                checkSpace(kingRow - 1, kingCol + 2, teamColor, ChessPiece.PieceType.KNIGHT) ||
-                checkSpace(kingRow - 1, kingCol - 2, teamColor, ChessPiece.PieceType.KNIGHT) ||
-
-                checkSpace(kingRow - 1, kingCol + 1, teamColor, ChessPiece.PieceType.KING) ||
-                checkSpace(kingRow, kingCol + 1, teamColor, ChessPiece.PieceType.KING) ||
-                checkSpace(kingRow + 1, kingCol + 1, teamColor, ChessPiece.PieceType.KING) ||
-                checkSpace(kingRow - 1, kingCol, teamColor, ChessPiece.PieceType.KING) ||
-                checkSpace(kingRow + 1, kingCol, teamColor, ChessPiece.PieceType.KING) ||
-                checkSpace(kingRow - 1, kingCol - 1, teamColor, ChessPiece.PieceType.KING) ||
-                checkSpace(kingRow, kingCol - 1, teamColor, ChessPiece.PieceType.KING) ||
-                checkSpace(kingRow + 1, kingCol - 1, teamColor, ChessPiece.PieceType.KING);
-
+    private static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
     }
 
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
     public boolean isInCheck(TeamColor teamColor) {
-
-        ChessPosition kingPos = findKing(teamColor);
-
-        if (kingPos == null) {
+        if (teamColor == TeamColor.NONE) {
             return false;
-        } else {
-            return cardinalThreat(kingPos) || diagonalThreat(kingPos) || pawnKnightThreat(kingPos, teamColor);
         }
-    }
-
-    private ChessPosition findKing(TeamColor color) {
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition checkPos = new ChessPosition(i, j);
-                ChessPiece piece = board.getPiece(checkPos);
-                if (board.getPiece(checkPos) == null) {
-                    continue;
-                }
-                if ((piece.getPieceType() == ChessPiece.PieceType.KING) && piece.getTeamColor() == color) {
-                    return checkPos;
-                }
-            }
+        int kingSquare = board.getKingSquare(teamColor);
+        if (kingSquare < 0) {
+            return false;
         }
-        return null;
+        TeamColor enemy = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        return (board.getAttackedSquares(enemy) & Bitboard.bit(kingSquare)) != 0;
     }
 
     /**
@@ -260,7 +426,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        return getAllMoves(teamColor).isEmpty();
+        return getGameState(teamColor) == GameState.CHECKMATE;
     }
 
     /**
@@ -271,12 +437,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        return getAllMoves(teamColor).isEmpty();
-        //1. ensure that isInCheck is false
-        //2. check every piece on your team, and if there are no legal moves, return true.
+        return getGameState(teamColor) == GameState.STALEMATE;
     }
 
     /**
@@ -286,6 +447,7 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        startHistory(0);
     }
 
     /**
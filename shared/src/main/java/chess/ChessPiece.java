@@ -2,7 +2,6 @@ package chess;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Objects;
 
 /**
@@ -14,6 +13,15 @@ import java.util.Objects;
 
 public class ChessPiece {
 
+    private static final ChessPiece[] CANONICAL = new ChessPiece[12];
+
+    static {
+        for (PieceType type : PieceType.values()) {
+            CANONICAL[type.ordinal()] = new ChessPiece(ChessGame.TeamColor.WHITE, type);
+            CANONICAL[6 + type.ordinal()] = new ChessPiece(ChessGame.TeamColor.BLACK, type);
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
@@ -22,6 +30,22 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance of a piece. Pieces are immutable, so boards can
+     * hold the same instance on any number of squares.
+     *
+     * @param pieceColor the team, WHITE or BLACK (NONE gets a new instance)
+     * @param type       the kind of piece
+     * @return the piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return switch (pieceColor) {
+            case WHITE -> CANONICAL[type.ordinal()];
+            case BLACK -> CANONICAL[6 + type.ordinal()];
+            case NONE -> new ChessPiece(pieceColor, type);
+        };
+    }
+
     @Override
     public String toString() {
         String result = switch (type) {
@@ -52,7 +76,8 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        //same value as Objects.hash(pieceColor, type) without the varargs array
+        return 31 * (31 + Objects.hashCode(pieceColor)) + Objects.hashCode(type);
     }
 
     /**
@@ -132,50 +157,18 @@ abstract class MoveCalculator {
         this.myPosition = myPosition;
     }
 
-    Collection<ChessMove> checkLaser(int row, int column, int range, ChessBoard board, ChessPosition position,
-                                     ChessPiece thisPiece, int direction) {
-        /** 0=north
-         * 2=east
-         * 4=sout
-         * 6=west
-         */
-        int distance = 1;
-        Collection<ChessMove> moves = new ArrayList<>();
-        ChessPosition checkPos;
-        int counter = range;
-        while (true) {
-            checkPos = switch (direction) {
-                case 1 -> new ChessPosition(row + distance, column + distance);
-                case 3 -> new ChessPosition(row - distance, column + distance);
-                case 5 -> new ChessPosition(row - distance, column - distance);
-                case 7 -> new ChessPosition(row + distance, column - distance);
-                case 0 -> new ChessPosition(row + distance, column);
-                case 2 -> new ChessPosition(row, column + distance);
-                case 4 -> new ChessPosition(row - distance, column);
-                case 6 -> new ChessPosition(row, column - distance);
-                default -> new ChessPosition(1, 1);
-            };
-            if (!checkPos.isInBounds() || counter == 0) {
-                break; // ensures that the checked position is within the bounds of the board and that
-                        // it is within the range of the piece (either 1 or infinity)
-            }
-
-            ChessMove potentialMove = new ChessMove(position, checkPos, null);
-            if (board.getPiece(checkPos) == null) {
-                //if the selected square is empty, add the move to the move list and continue counting
-                moves.add(potentialMove);
-                distance += 1;
-            } else if (board.getPiece(checkPos).getTeamColor() != thisPiece.getTeamColor()) {
-                //if it has an opposite team piece, add the move and stop counting
-                moves.add(potentialMove);
-                break;
-            } else //if there is a piece of your own team, don't add the move, and stop counting
-            {
-                break;
-            }
-            counter--;
-        }
+    long getOwnMask() {
+        return board.getColorMask(board.getPiece(myPosition).getTeamColor());
+    }
 
+    Collection<ChessMove> getTargetMoves(long targets) {
+        //turns every set bit of the target mask into a move from this position
+        Collection<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            int square = Long.numberOfTrailingZeros(targets);
+            moves.add(new ChessMove(myPosition, Bitboard.position(square), null));
+            targets &= targets - 1;
+        }
         return moves;
     }
 
@@ -187,46 +180,6 @@ abstract class MoveCalculator {
         moves.add(new ChessMove(position, checkPos, ChessPiece.PieceType.KNIGHT));
         return moves;
     }
-
-    Collection<ChessMove> checkSpace(int row, int column, ChessBoard board, ChessPosition position, ChessPiece thisPiece, int rowDiff, int colDiff) {
-        Collection<ChessMove> moves = new ArrayList<ChessMove>();
-        ChessPosition checkPos = new ChessPosition(row + rowDiff, column + colDiff);
-        ChessMove potentialMove = new ChessMove(position, checkPos, null);
-        ChessPiece targetPiece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        if (checkPos.getColumn() <= 8 && checkPos.getColumn() >= 1 && checkPos.getRow() <= 8 && checkPos.getRow() >= 1) {
-            targetPiece = board.getPiece(checkPos);
-
-            if (thisPiece.getPieceType() == ChessPiece.PieceType.PAWN) {
-                //pawn special rules
-
-                if (targetPiece != null && colDiff != 0 && targetPiece.getTeamColor() != thisPiece.getTeamColor()) {
-                    //capture diagonals
-
-                    if (checkPos.getRow() == 8 || checkPos.getRow() == 1) //add promotions if moving to last rank
-                    {
-                        moves.addAll(getPromotionMoves(position, checkPos));
-                    } else //use default (null) promotion if moving to any other rank
-                    {
-                        moves.add(potentialMove);
-                    }
-                } else if (colDiff == 0 && targetPiece == null)
-                //move forward
-
-                {
-                    if (checkPos.getRow() == 8 || checkPos.getRow() == 1) {
-                        moves.addAll(getPromotionMoves(position, checkPos));
-                    } else {
-                        moves.add(potentialMove);
-                    }
-                }
-            } else if (targetPiece == null || targetPiece.getTeamColor() != thisPiece.getTeamColor()) {
-                //rules for knights
-                moves.add(potentialMove);
-            }
-        }
-
-        return moves;
-    }
 }
 
 class BishopMoveCalculator extends MoveCalculator {
@@ -240,15 +193,8 @@ class BishopMoveCalculator extends MoveCalculator {
     }
 
     Collection<ChessMove> calculateMoves() {
-        ChessPiece thisPiece = board.getPiece(myPosition); //stores current piece object in a variable
-        Collection<ChessMove> moves = new HashSet<>();
-        int myRow = myPosition.getRow();
-        int myCol = myPosition.getColumn();
-        //checks a laser in each direction and adds the available spaces in each direction to moves
-        for (int i = 1; i < 8; i += 2) {
-            moves.addAll(checkLaser(myRow, myCol, 8, board, myPosition, thisPiece, i));
-        }
-        return moves;
+        long attacks = Bitboard.bishopAttacks(Bitboard.square(myPosition), board.getOccupiedMask());
+        return getTargetMoves(attacks & ~getOwnMask());
     }
 }
 
@@ -263,15 +209,8 @@ class RookMoveCalculator extends MoveCalculator {
     }
 
     Collection<ChessMove> calculateMoves() {
-        ChessPiece thisPiece = board.getPiece(myPosition); //stores current piece object in a variable
-        Collection<ChessMove> moves = new HashSet<>();
-        int myRow = myPosition.getRow();
-        int myCol = myPosition.getColumn();
-        //checks a laser in each direction and adds the available spaces in each direction to moves
-        for (int i = 0; i < 8; i += 2) {
-            moves.addAll(checkLaser(myRow, myCol, 8, board, myPosition, thisPiece, i));
-        }
-        return moves;
+        long attacks = Bitboard.rookAttacks(Bitboard.square(myPosition), board.getOccupiedMask());
+        return getTargetMoves(attacks & ~getOwnMask());
     }
 }
 
@@ -286,15 +225,8 @@ class QueenMoveCalculator extends MoveCalculator {
     }
 
     Collection<ChessMove> calculateMoves() {
-        ChessPiece thisPiece = board.getPiece(myPosition); //stores current piece object in a variable
-        Collection<ChessMove> moves = new HashSet<>();
-        int myRow = myPosition.getRow();
-        int myCol = myPosition.getColumn();
-        //checks a laser in each direction and adds the available spaces in each direction to moves
-        for (int i = 0; i < 8; i++) {
-            moves.addAll(checkLaser(myRow, myCol, 8, board, myPosition, thisPiece, i));
-        }
-        return moves;
+        long attacks = Bitboard.queenAttacks(Bitboard.square(myPosition), board.getOccupiedMask());
+        return getTargetMoves(attacks & ~getOwnMask());
     }
 }
 
@@ -309,15 +241,7 @@ class KingMoveCalculator extends MoveCalculator {
     }
 
     Collection<ChessMove> calculateMoves() {
-        ChessPiece thisPiece = board.getPiece(myPosition); //stores current piece object in a variable
-        Collection<ChessMove> moves = new HashSet<>();
-        int myRow = myPosition.getRow();
-        int myCol = myPosition.getColumn();
-        //checks a single square in each direction and adds the available spaces in each direction to moves
-        for (int i = 0; i < 8; i++) {
-            moves.addAll(checkLaser(myRow, myCol, 1, board, myPosition, thisPiece, i));
-        }
-        return moves;
+        return getTargetMoves(Bitboard.kingAttacks(Bitboard.square(myPosition)) & ~getOwnMask());
     }
 
 }
@@ -332,38 +256,29 @@ class PawnMoveCalculator extends MoveCalculator {
         this.myPosition = myPosition;
     }
 
-    Collection<ChessMove> choosePawnDirection(int myRow, int myCol, ChessBoard board, ChessPosition myPosition, ChessPiece thisPiece, int direction) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        //directly ahead
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, direction, 0));
-        boolean firstSpacePossible = !moves.isEmpty();
-        //if in starting position, check second space ahead (and make sure that it can move to the first space)
-        if (((direction == 1 && myRow == 2) || (direction == -1 && myRow == 7)) && firstSpacePossible) {
-            moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, 2 * direction, 0));
-        }
-
-        //check diagonals for capture
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, direction, 1));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, direction, -1));
-
-        return moves;
-    }
-
     Collection<ChessMove> calculateMoves() {
-        ChessPiece thisPiece = board.getPiece(myPosition); //stores current piece object in a variable
-        Collection<ChessMove> moves = new HashSet<>();
-        int myRow = myPosition.getRow();
-        int myCol = myPosition.getColumn();
-        int direction = 1;
-
-        if (board.getPiece(myPosition).getTeamColor() == ChessGame.TeamColor.WHITE) { //white pawns
-            direction = 1;
-
-        } else if (board.getPiece(myPosition).getTeamColor() == ChessGame.TeamColor.BLACK) { //black pawns
-            direction = -1;
+        ChessGame.TeamColor color = board.getPiece(myPosition).getTeamColor();
+        ChessGame.TeamColor enemy = color == ChessGame.TeamColor.BLACK ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        int square = Bitboard.square(myPosition);
+        long empty = ~board.getOccupiedMask();
+
+        //directly ahead, then a second space from the starting rank if the first one is open
+        long pushes = Bitboard.pawnPush(color, Bitboard.bit(square)) & empty;
+        long startRank = color == ChessGame.TeamColor.BLACK ? Bitboard.RANK_7 : Bitboard.RANK_2;
+        if ((Bitboard.bit(square) & startRank) != 0) {
+            pushes |= Bitboard.pawnPush(color, pushes) & empty;
+        }
+        //diagonals for capture
+        long captures = Bitboard.pawnAttacks(color, square) & board.getColorMask(enemy);
+
+        long targets = pushes | captures;
+        long promotions = targets & (Bitboard.RANK_1 | Bitboard.RANK_8);
+        Collection<ChessMove> moves = getTargetMoves(targets & ~promotions);
+        while (promotions != 0) {
+            int target = Long.numberOfTrailingZeros(promotions);
+            moves.addAll(getPromotionMoves(myPosition, Bitboard.position(target)));
+            promotions &= promotions - 1;
         }
-        moves.addAll(choosePawnDirection(myRow, myCol, board, myPosition, thisPiece, direction));
-
         return moves;
     }
 }
@@ -380,18 +295,6 @@ class KnightMoveCalculator extends MoveCalculator {
     }
 
     Collection<ChessMove> calculateMoves() {
-        ChessPiece thisPiece = board.getPiece(myPosition);
-        Collection<ChessMove> moves = new ArrayList<>();
-        int myRow = myPosition.getRow();
-        int myCol = myPosition.getColumn();
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, 1, 2));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, -1, 2));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, 1, -2));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, -1, -2));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, 2, 1));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, -2, 1));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, 2, -1));
-        moves.addAll(checkSpace(myRow, myCol, board, myPosition, thisPiece, -2, -1));
-        return moves;
+        return getTargetMoves(Bitboard.knightAttacks(Bitboard.square(myPosition)) & ~getOwnMask());
     }
 }
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -10,6 +8,14 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    private static final ChessPosition[] CANONICAL = new ChessPosition[64];
+
+    static {
+        for (int i = 0; i < 64; i++) {
+            CANONICAL[i] = new ChessPosition(i / 8 + 1, i % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -18,6 +24,29 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets a shared instance for an on-board square instead of allocating a new
+     * one. Off-board coordinates still get a fresh object.
+     *
+     * @param row 1 codes for the bottom row
+     * @param col 1 codes for the left column
+     * @return the position
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return CANONICAL[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @param square square index (see Bitboard)
+     * @return the shared instance for that square
+     */
+    static ChessPosition of(int square) {
+        return CANONICAL[square];
+    }
+
     /* override toString
      */
     @Override
@@ -89,6 +118,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        //same value as Objects.hash(row, col) without the varargs array
+        return 31 * (31 + row) + col;
     }
 }
@@ -0,0 +1,234 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation (FEN), for example
+ * <pre>
+ * rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b - - 0 1
+ * </pre>
+ * The six fields are the pieces from rank 8 down to rank 1, the side to move,
+ * castling rights, the en passant square, the halfmove clock and the move
+ * number. Castling and en passant are not part of this game, so they are
+ * always written as "-" and skipped when read. A finished game, whose turn is
+ * NONE, is written with "-" as the side to move; standard FEN has no way to
+ * say that.
+ * <p>
+ * Both directions walk the text one character at a time, without regular
+ * expressions, splitting or any other intermediate strings.
+ */
+public final class Fen {
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    // indexed by PieceType ordinal
+    private static final char[] PIECE_CHARS = {'k', 'q', 'b', 'n', 'r', 'p'};
+
+    private Fen() {
+    }
+
+    /**
+     * Reads a game from a FEN string. The halfmove clock and move number may
+     * be left off, in which case they start at 0 and 1.
+     *
+     * @throws IllegalArgumentException if the text is not a valid FEN
+     */
+    public static ChessGame parse(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int i = readPlacement(fen, board);
+        i = expectSpace(fen, i);
+        TeamColor turn = switch (charAt(fen, i)) {
+            case 'w' -> TeamColor.WHITE;
+            case 'b' -> TeamColor.BLACK;
+            case '-' -> TeamColor.NONE;
+            default -> throw error(fen, i, "expected w or b");
+        };
+        i = expectSpace(fen, i + 1);
+        //castling rights, then the en passant square; neither applies to this game
+        i = skipField(fen, i);
+        i = skipField(fen, expectSpace(fen, i));
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (i < fen.length()) {
+            i = expectSpace(fen, i);
+            int start = i;
+            while (i < fen.length() && isDigit(fen.charAt(i))) {
+                halfmoveClock = halfmoveClock * 10 + fen.charAt(i++) - '0';
+            }
+            if (i == start) {
+                throw error(fen, i, "expected the halfmove clock");
+            }
+            if (i < fen.length()) {
+                i = expectSpace(fen, i);
+                start = i;
+                fullmoveNumber = 0;
+                while (i < fen.length() && isDigit(fen.charAt(i))) {
+                    fullmoveNumber = fullmoveNumber * 10 + fen.charAt(i++) - '0';
+                }
+                if (i == start || fullmoveNumber == 0) {
+                    throw error(fen, start, "expected the move number");
+                }
+            }
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        if (i < fen.length()) {
+            throw error(fen, i, "unexpected text after the move number");
+        }
+        return new ChessGame(board, turn, halfmoveClock, fullmoveNumber);
+    }
+
+    /**
+     * Reads just the pieces from a FEN string. Anything after the first field
+     * is ignored, so a full FEN works as well.
+     *
+     * @throws IllegalArgumentException if the piece placement is not valid
+     */
+    public static ChessBoard parseBoard(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        readPlacement(fen, board);
+        return board;
+    }
+
+    /**
+     * @return the game as a full six-field FEN string
+     */
+    public static String write(ChessGame game) {
+        StringBuilder out = new StringBuilder(90);
+        write(game, out);
+        return out.toString();
+    }
+
+    /**
+     * Appends the game as a full six-field FEN string
+     */
+    public static void write(ChessGame game, StringBuilder out) {
+        writePlacement(game.getBoard(), out);
+        out.append(' ').append(switch (game.getTeamTurn()) {
+            case WHITE -> 'w';
+            case BLACK -> 'b';
+            case NONE -> '-';
+        });
+        out.append(" - - ").append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+    }
+
+    /**
+     * @return just the piece placement field for the board
+     */
+    public static String write(ChessBoard board) {
+        StringBuilder out = new StringBuilder(72);
+        writePlacement(board, out);
+        return out.toString();
+    }
+
+    private static void writePlacement(ChessBoard board, StringBuilder out) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int square = row * 8; square < row * 8 + 8; square++) {
+                ChessPiece piece = board.getPiece(square);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char c = PIECE_CHARS[piece.getPieceType().ordinal()];
+                out.append(piece.getTeamColor() == TeamColor.WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+    }
+
+    /**
+     * Places the pieces of the first field on the board
+     *
+     * @return the index just past the field
+     */
+    private static int readPlacement(CharSequence fen, ChessBoard board) {
+        int row = 7;
+        int column = 0;
+        int i = 0;
+        for (; i < fen.length(); i++) {
+            char c = fen.charAt(i);
+            if (c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                if (column != 8 || row == 0) {
+                    throw error(fen, i, "rank does not have 8 squares");
+                }
+                row--;
+                column = 0;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+                if (column > 8) {
+                    throw error(fen, i, "rank has more than 8 squares");
+                }
+            } else {
+                if (column == 8) {
+                    throw error(fen, i, "rank has more than 8 squares");
+                }
+                PieceType type = switch (Character.toLowerCase(c)) {
+                    case 'k' -> PieceType.KING;
+                    case 'q' -> PieceType.QUEEN;
+                    case 'b' -> PieceType.BISHOP;
+                    case 'n' -> PieceType.KNIGHT;
+                    case 'r' -> PieceType.ROOK;
+                    case 'p' -> PieceType.PAWN;
+                    default -> throw error(fen, i, "unknown piece " + c);
+                };
+                TeamColor color = Character.isUpperCase(c) ? TeamColor.WHITE : TeamColor.BLACK;
+                board.addPiece(ChessPosition.of(row * 8 + column), ChessPiece.of(color, type));
+                column++;
+            }
+        }
+        if (row != 0 || column != 8) {
+            throw error(fen, i, "expected 8 ranks of 8 squares");
+        }
+        return i;
+    }
+
+    private static int skipField(CharSequence fen, int i) {
+        int start = i;
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            i++;
+        }
+        if (i == start) {
+            throw error(fen, i, "missing field");
+        }
+        return i;
+    }
+
+    private static int expectSpace(CharSequence fen, int i) {
+        if (charAt(fen, i) != ' ') {
+            throw error(fen, i, "expected a space");
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static char charAt(CharSequence fen, int i) {
+        if (i >= fen.length()) {
+            throw error(fen, i, "unexpected end");
+        }
+        return fen.charAt(i);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException error(CharSequence fen, int index, String message) {
+        return new IllegalArgumentException("bad FEN at " + index + ": " + message + " in \"" + fen + "\"");
+    }
+}
@@ -0,0 +1,385 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Proves or refutes forced mates with proof-number search
+ * <p>
+ * The solver grows a tree of positions where the attacker may only play moves
+ * that give check and the defender may play anything. Every node carries a
+ * proof number, the fewest leaves that still have to be shown to be mates to
+ * prove it, and a disproof number, the fewest leaves that have to fail to
+ * refute it. Each step expands the most-proving leaf, the one reached by
+ * following the smallest proof number through attacker nodes and the smallest
+ * disproof number through defender nodes, and so the search goes deep along
+ * forcing lines and quickly gives up on ones where the defender has many
+ * replies. A search for mate in N is bounded at 2N - 1 plies; the solver tries
+ * N = 1, 2, ... so the mate it reports is the shortest.
+ * <p>
+ * The tree is kept in preallocated arrays sized from a memory cap, and a node
+ * budget bounds the work, so the solver answers UNKNOWN rather than running
+ * away on a position it cannot decide. Run the puzzle set from the shared
+ * module with
+ * <pre>
+ * mvn -q -Pperft compile exec:java -Dexec.mainClass=chess.MateSolver
+ * </pre>
+ */
+public class MateSolver {
+    private static final int INFINITE = Integer.MAX_VALUE / 2;
+    // bytes of the arrays below per tree node
+    private static final int NODE_BYTES = 6 * Integer.BYTES;
+
+    /**
+     * What the solver found out
+     */
+    public enum Status {
+        MATE,
+        NO_MATE,
+        UNKNOWN
+    }
+
+    /**
+     * @param status    MATE if the attacker mates in at most the moves asked for,
+     *                  NO_MATE if it cannot with checks alone, UNKNOWN if a limit ran out
+     * @param mateIn    attacker moves to mate, or 0 unless status is MATE
+     * @param mainLine  the mating line with the defender's longest resistance, empty unless MATE
+     * @param nodes     tree nodes created over every depth tried
+     * @param millis    time taken
+     */
+    public record Result(Status status, int mateIn, List<ChessMove> mainLine, long nodes, long millis) {
+    }
+
+    /**
+     * A puzzle for the benchmark set
+     *
+     * @param name    short description
+     * @param diagram board in the same |r|n|b| layout as ChessBoard.toString
+     * @param turn    the attacking side, which is to move
+     * @param mateIn  the known length of the mate
+     */
+    public record Puzzle(String name, String diagram, TeamColor turn, int mateIn) {
+        public ChessGame toGame() {
+            ChessGame game = new ChessGame();
+            game.setBoard(Perft.parseDiagram(diagram));
+            game.setTeamTurn(turn);
+            return game;
+        }
+    }
+
+    public static final List<Puzzle> PUZZLES = List.of(
+            new Puzzle("back rank", """
+                    | | | | | | |k| |
+                    | | | | | |p|p|p|
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | |P|P|P|
+                    |R| | | | | |K| |
+                    """, TeamColor.WHITE, 1),
+            new Puzzle("smothered", """
+                    | | | | | | |r|k|
+                    | | | | | | |p|p|
+                    | | | | | | | | |
+                    | | | | | | |N| |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    |K| | | | | | | |
+                    """, TeamColor.WHITE, 1),
+            new Puzzle("anastasia", """
+                    | | | | | |r|k| |
+                    | | | | | |p|p|p|
+                    | | | | | | | | |
+                    | | | |N|R| | | |
+                    | | | | | | | | |
+                    | | | |Q| | | | |
+                    | | | | | |P|P|P|
+                    | | | | | | |K| |
+                    """, TeamColor.WHITE, 3),
+            new Puzzle("rook ladder", """
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | |k| | | | | | |
+                    | | | | | | | |R|
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    |K| | | | | |R| |
+                    """, TeamColor.WHITE, 3),
+            new Puzzle("long rook ladder", """
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | |k| | | | | | |
+                    | | | | | | | |R|
+                    | | | | | | | | |
+                    | | | | | | |R| |
+                    |K| | | | | | | |
+                    """, TeamColor.WHITE, 4),
+            new Puzzle("philidor's legacy", """
+                    | | | | | |r|k| |
+                    | | | | | | |p|p|
+                    | | | | | | | | |
+                    | | | | | | |N| |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | |P|P|P|
+                    | | | |Q| | |K| |
+                    """, TeamColor.WHITE, 5)
+    );
+
+    private final int capacity;
+    // tree nodes, one slot per node; children of a node are stored next to each other
+    private final int[] moves;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] parent;
+    private final int[] proof;
+    private final int[] disproof;
+
+    private final MoveList legal = new MoveList();
+
+    private ChessBoard board;
+    private int size;
+
+    /**
+     * @param megabytes memory for the search tree, at least 1
+     */
+    public MateSolver(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("mate solver needs at least 1 MB");
+        }
+        capacity = (int) Math.min(megabytes * 1024L * 1024L / NODE_BYTES, Integer.MAX_VALUE - 8);
+        moves = new int[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        parent = new int[capacity];
+        proof = new int[capacity];
+        disproof = new int[capacity];
+    }
+
+    /**
+     * Looks for a mate by the side to move
+     *
+     * @param game       the position; it is not modified
+     * @param maxMoves   longest mate to look for, in attacker moves
+     * @param nodeBudget most tree nodes to create over every depth tried
+     * @return the shortest mate found, NO_MATE, or UNKNOWN if the budget or memory ran out
+     */
+    public Result solve(ChessGame game, int maxMoves, long nodeBudget) {
+        long start = System.currentTimeMillis();
+        long nodes = 0;
+        for (int mateIn = 1; mateIn <= maxMoves; mateIn++) {
+            board = new ChessBoard(game.getBoard());
+            Status status = prove(game.getTeamTurn(), 2 * mateIn - 1, nodeBudget - nodes);
+            nodes += size;
+            if (status == Status.MATE) {
+                return new Result(Status.MATE, mateIn, mainLine(), nodes, System.currentTimeMillis() - start);
+            }
+            if (status == Status.UNKNOWN) {
+                return new Result(Status.UNKNOWN, 0, List.of(), nodes, System.currentTimeMillis() - start);
+            }
+        }
+        return new Result(Status.NO_MATE, 0, List.of(), nodes, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Runs one proof-number search to a fixed number of plies
+     */
+    private Status prove(TeamColor attacker, int plies, long nodeBudget) {
+        size = 1;
+        moves[0] = Move.NONE;
+        parent[0] = -1;
+        childCount[0] = -1;
+        proof[0] = 1;
+        disproof[0] = 1;
+        TeamColor defender = attacker == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        ChessPiece[] captured = new ChessPiece[plies + 1];
+
+        while (proof[0] != 0 && disproof[0] != 0) {
+            //walk down to the most-proving leaf, playing the moves on the board
+            int node = 0;
+            int ply = 0;
+            while (childCount[node] >= 0) {
+                node = mostProvingChild(node, ply % 2 == 0);
+                captured[ply] = board.makeMove(moves[node]);
+                ply++;
+            }
+            TeamColor toMove = ply % 2 == 0 ? attacker : defender;
+            if (!expand(node, toMove, plies - ply, nodeBudget)) {
+                unwind(node, ply, captured);
+                return Status.UNKNOWN;
+            }
+            //back up the new numbers, taking the moves back on the way
+            while (node != 0) {
+                update(node, ply % 2 == 0);
+                ply--;
+                board.unmakeMove(moves[node], captured[ply]);
+                node = parent[node];
+            }
+            update(0, true);
+        }
+        return proof[0] == 0 ? Status.MATE : Status.NO_MATE;
+    }
+
+    private void unwind(int node, int ply, ChessPiece[] captured) {
+        while (node != 0) {
+            ply--;
+            board.unmakeMove(moves[node], captured[ply]);
+            node = parent[node];
+        }
+    }
+
+    private int mostProvingChild(int node, boolean attackerToMove) {
+        int best = firstChild[node];
+        for (int child = best + 1; child < firstChild[node] + childCount[node]; child++) {
+            if (attackerToMove ? proof[child] < proof[best] : disproof[child] < disproof[best]) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds the children of a leaf, scoring the ones that end the game at once
+     *
+     * @param pliesLeft plies the search may still go below this node
+     * @return false if the tree is out of room or the budget is spent
+     */
+    private boolean expand(int node, TeamColor toMove, int pliesLeft, long nodeBudget) {
+        legal.clear();
+        new MoveGenerator(board, toMove).generate(legal);
+        if (size + legal.size() > capacity || size + legal.size() > nodeBudget) {
+            return false;
+        }
+        TeamColor other = toMove == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        boolean attackerToMove = pliesLeft % 2 == 1;
+        firstChild[node] = size;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            ChessPiece captured = board.makeMove(move);
+            MoveGenerator reply = new MoveGenerator(board, other);
+            boolean check = reply.getCheckers() != 0;
+            if (!attackerToMove || check) {
+                int child = size++;
+                moves[child] = move;
+                parent[child] = node;
+                childCount[child] = -1;
+                if (attackerToMove && !reply.hasAnyMove()) {
+                    //mate
+                    proof[child] = 0;
+                    disproof[child] = INFINITE;
+                } else if (pliesLeft == 1) {
+                    //the attacker has no move left to mate with
+                    proof[child] = INFINITE;
+                    disproof[child] = 0;
+                } else {
+                    proof[child] = 1;
+                    disproof[child] = 1;
+                }
+            }
+            board.unmakeMove(move, captured);
+        }
+        childCount[node] = size - firstChild[node];
+        return true;
+    }
+
+    private void update(int node, boolean attackerToMove) {
+        int count = childCount[node];
+        if (count < 0) {
+            return;
+        }
+        if (count == 0) {
+            //an attacker with no checks has failed; a defender with no moves here cannot happen
+            proof[node] = attackerToMove ? INFINITE : 0;
+            disproof[node] = attackerToMove ? 0 : INFINITE;
+            return;
+        }
+        int min = INFINITE;
+        long sum = 0;
+        for (int child = firstChild[node]; child < firstChild[node] + count; child++) {
+            min = Math.min(min, attackerToMove ? proof[child] : disproof[child]);
+            sum += attackerToMove ? disproof[child] : proof[child];
+        }
+        int total = (int) Math.min(sum, INFINITE);
+        proof[node] = attackerToMove ? min : total;
+        disproof[node] = attackerToMove ? total : min;
+    }
+
+    /**
+     * Follows the proof from the root: the attacker plays its fastest mate and
+     * the defender the reply that holds out longest
+     */
+    private List<ChessMove> mainLine() {
+        int[] length = new int[size];
+        Arrays.fill(length, -1);
+        List<ChessMove> line = new ArrayList<>();
+        int node = 0;
+        boolean attackerToMove = true;
+        while (childCount[node] > 0) {
+            int next = -1;
+            for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+                if (proof[child] != 0) {
+                    continue;
+                }
+                int childLength = proofLength(child, !attackerToMove, length);
+                if (next < 0 || (attackerToMove ? childLength < length[next] : childLength > length[next])) {
+                    next = child;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            line.add(Move.toChessMove(moves[next]));
+            node = next;
+            attackerToMove = !attackerToMove;
+        }
+        return line;
+    }
+
+    /**
+     * @return plies to mate below a proven node, by the same choice as mainLine
+     */
+    private int proofLength(int node, boolean attackerToMove, int[] length) {
+        if (length[node] >= 0) {
+            return length[node];
+        }
+        int result;
+        if (childCount[node] <= 0) {
+            result = 0;
+        } else {
+            result = attackerToMove ? INFINITE : 0;
+            for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+                if (proof[child] == 0) {
+                    int childLength = proofLength(child, !attackerToMove, length) + 1;
+                    result = attackerToMove ? Math.min(result, childLength) : Math.max(result, childLength);
+                }
+            }
+        }
+        length[node] = result;
+        return result;
+    }
+
+    /**
+     * Usage: MateSolver [megabytes] [nodeBudget]
+     * <p>
+     * Solves each puzzle in the set and prints the time it took.
+     */
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        long nodeBudget = args.length > 1 ? Long.parseLong(args[1]) : 5_000_000;
+        MateSolver solver = new MateSolver(megabytes);
+        for (Puzzle puzzle : PUZZLES) {
+            Result result = solver.solve(puzzle.toGame(), puzzle.mateIn(), nodeBudget);
+            String check = result.status() == Status.MATE && result.mateIn() == puzzle.mateIn() ? "ok"
+                    : "EXPECTED mate in " + puzzle.mateIn();
+            System.out.printf("%-18s %-8s in %d: %,d nodes in %d ms %s %s%n", puzzle.name(), result.status(),
+                    result.mateIn(), result.nodes(), result.millis(), check, result.mainLine());
+        }
+    }
+}
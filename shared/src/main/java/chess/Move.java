@@ -0,0 +1,83 @@
+package chess;
+
+/**
+ * Helpers for moves packed into an int
+ * <p>
+ * Layout, low bits first: start square (6), end square (6), promotion piece
+ * (3, 0 for none, otherwise PieceType ordinal + 1), capture flag (1). Squares
+ * are indexes as in Bitboard. Every packed move fits in 16 bits, and 0 (a1 to
+ * a1) is never a real move, so it is used to mean "no move".
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    private static final int CAPTURE_FLAG = 1 << 15;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, boolean capture) {
+        int move = from | to << 6;
+        if (promotion != null) {
+            move |= (promotion.ordinal() + 1) << 12;
+        }
+        return capture ? move | CAPTURE_FLAG : move;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the piece a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = (move >>> 12) & 7;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & 7 << 12) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE_FLAG) != 0;
+    }
+
+    /**
+     * Converts a packed move to a ChessMove using the shared position instances
+     */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotion(move));
+    }
+
+    /**
+     * Packs a ChessMove, taking the capture flag from the board it will be played on
+     *
+     * @param move  the move, which must stay on the board
+     * @param board the board before the move
+     * @return the packed move
+     */
+    public static int fromChessMove(ChessMove move, ChessBoard board) {
+        int to = Bitboard.square(move.getEndPosition());
+        return encode(Bitboard.square(move.getStartPosition()), to, move.getPromotionPiece(),
+                board.getPiece(to) != null);
+    }
+
+    /**
+     * @return the move in coordinate notation, such as e2e4 or e7e8q
+     */
+    public static String toString(int move) {
+        String text = ChessPosition.of(from(move)).toString() + ChessPosition.of(to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            text += ChessPiece.of(ChessGame.TeamColor.BLACK, promotion);
+        }
+        return text;
+    }
+}
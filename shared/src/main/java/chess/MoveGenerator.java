@@ -0,0 +1,266 @@
+package chess;
+
+import java.util.Collection;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Generates fully legal moves for one team in one position
+ * <p>
+ * The pieces giving check and the pieces pinned against the king are worked out
+ * once when the generator is built. After that each move is kept or dropped by
+ * mask tests alone: while in check a non-king piece must land on the checking
+ * piece or between it and the king, and a pinned piece must stay on the line
+ * through its king. King moves are filtered against the enemy attack map.
+ * A team without a king is never in check and has no pins.
+ */
+class MoveGenerator {
+    private static final long ALL_SQUARES = -1L;
+
+    private final ChessBoard board;
+    private final TeamColor color;
+    private final TeamColor enemy;
+    private final long own;
+    private final long enemies;
+    private final long occupied;
+    private final int kingSquare;
+    private final long checkers;
+    private final long checkMask;
+    private final long pinned;
+
+    MoveGenerator(ChessBoard board, TeamColor color) {
+        this.board = board;
+        this.color = color;
+        this.enemy = color == TeamColor.BLACK ? TeamColor.WHITE : TeamColor.BLACK;
+        this.own = board.getColorMask(color);
+        this.enemies = board.getColorMask(enemy);
+        this.occupied = own | enemies;
+
+        kingSquare = board.getKingSquare(color);
+        if (kingSquare < 0) {
+            checkers = 0;
+            checkMask = ALL_SQUARES;
+            pinned = 0;
+            return;
+        }
+        checkers = board.attackersTo(kingSquare, enemy, occupied);
+        if (checkers == 0) {
+            checkMask = ALL_SQUARES;
+        } else if (Long.bitCount(checkers) == 1) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Bitboard.between(kingSquare, checker);
+        } else {
+            //double check, only the king can move
+            checkMask = 0;
+        }
+        pinned = findPinned();
+    }
+
+    private long findPinned() {
+        //enemy sliders that would see the king through exactly one of our pieces
+        long queens = board.getPieceMask(enemy, PieceType.QUEEN);
+        long snipers = (Bitboard.rookAttacks(kingSquare, enemies)
+                & (board.getPieceMask(enemy, PieceType.ROOK) | queens))
+                | (Bitboard.bishopAttacks(kingSquare, enemies)
+                & (board.getPieceMask(enemy, PieceType.BISHOP) | queens));
+        long result = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            long blockers = Bitboard.between(kingSquare, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                result |= blockers;
+            }
+            snipers &= snipers - 1;
+        }
+        return result;
+    }
+
+    TeamColor getColor() {
+        return color;
+    }
+
+    /**
+     * @return mask of the enemy pieces giving check
+     */
+    long getCheckers() {
+        return checkers;
+    }
+
+    /**
+     * @return mask of our pieces pinned against our king
+     */
+    long getPinned() {
+        return pinned;
+    }
+
+    /**
+     * @return every legal move for the piece on the given square
+     */
+    Collection<ChessMove> movesFrom(int square) {
+        MoveList moves = new MoveList();
+        addMoves(square, moves, ALL_SQUARES);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * @return every legal move for the team
+     */
+    Collection<ChessMove> allMoves() {
+        MoveList moves = new MoveList();
+        generate(moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Adds every legal move for the piece on the given square to the list
+     */
+    void generateFrom(int square, MoveList moves) {
+        addMoves(square, moves, ALL_SQUARES);
+    }
+
+    /**
+     * Adds every legal move for the team to the list
+     */
+    void generate(MoveList moves) {
+        generate(moves, own, ALL_SQUARES);
+    }
+
+    /**
+     * Adds the legal moves of some of the team's pieces that land on some squares
+     *
+     * @param pieces     mask of the pieces to move; other squares are ignored
+     * @param targetMask mask of the squares they may move to
+     */
+    void generate(MoveList moves, long pieces, long targetMask) {
+        pieces &= own;
+        while (pieces != 0) {
+            addMoves(Long.numberOfTrailingZeros(pieces), moves, targetMask);
+            pieces &= pieces - 1;
+        }
+    }
+
+    /**
+     * Checks a packed move against this position: the piece must be ours and
+     * allowed to reach the target, the promotion must be given exactly when a
+     * pawn reaches the last rank, and the capture flag must match the board
+     *
+     * @return true if the move is one generate would produce
+     */
+    boolean isLegal(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if ((targets(from) & Bitboard.bit(to)) == 0) {
+            return false;
+        }
+        boolean capture = (enemies & Bitboard.bit(to)) != 0;
+        if (capture != Move.isCapture(move)) {
+            return false;
+        }
+        boolean promotes = board.getPiece(from).getPieceType() == PieceType.PAWN
+                && (Bitboard.bit(to) & (Bitboard.RANK_1 | Bitboard.RANK_8)) != 0;
+        PieceType promotion = Move.promotion(move);
+        if (!promotes) {
+            return promotion == null;
+        }
+        return promotion != null && promotion != PieceType.KING && promotion != PieceType.PAWN;
+    }
+
+    /**
+     * Looks for any legal move, stopping at the first one found. King moves are
+     * tried first since they are the only candidates in double check.
+     *
+     * @return true if the team has at least one legal move
+     */
+    boolean hasAnyMove() {
+        if (kingSquare >= 0 && kingTargets() != 0) {
+            return true;
+        }
+        if (checkMask == 0) {
+            return false;
+        }
+        long pieces = own;
+        if (kingSquare >= 0) {
+            pieces &= ~Bitboard.bit(kingSquare);
+        }
+        while (pieces != 0) {
+            if (targets(Long.numberOfTrailingZeros(pieces)) != 0) {
+                return true;
+            }
+            pieces &= pieces - 1;
+        }
+        return false;
+    }
+
+    /**
+     * @return the legal target squares for the piece on the given square
+     */
+    long targets(int square) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null || piece.getTeamColor() != color) {
+            return 0;
+        }
+        if (square == kingSquare) {
+            return kingTargets();
+        }
+        long targets = pseudoTargets(piece.getPieceType(), square) & checkMask;
+        if ((pinned & Bitboard.bit(square)) != 0) {
+            targets &= Bitboard.line(kingSquare, square);
+        }
+        return targets;
+    }
+
+    private long kingTargets() {
+        long danger;
+        if (checkers == 0) {
+            //nothing sees the king, so lifting it cannot lengthen any attack
+            danger = board.getAttackedSquares(enemy);
+        } else {
+            //take the king off the board so sliders see through the square it is leaving
+            danger = board.attacksFrom(enemy, occupied ^ Bitboard.bit(kingSquare));
+        }
+        return Bitboard.kingAttacks(kingSquare) & ~own & ~danger;
+    }
+
+    private long pseudoTargets(PieceType type, int square) {
+        return switch (type) {
+            case KING -> Bitboard.kingAttacks(square) & ~own;
+            case QUEEN -> Bitboard.queenAttacks(square, occupied) & ~own;
+            case ROOK -> Bitboard.rookAttacks(square, occupied) & ~own;
+            case BISHOP -> Bitboard.bishopAttacks(square, occupied) & ~own;
+            case KNIGHT -> Bitboard.knightAttacks(square) & ~own;
+            case PAWN -> pawnTargets(square);
+        };
+    }
+
+    private long pawnTargets(int square) {
+        long empty = ~occupied;
+        long pushes = Bitboard.pawnPush(color, Bitboard.bit(square)) & empty;
+        long startRank = color == TeamColor.BLACK ? Bitboard.RANK_7 : Bitboard.RANK_2;
+        if ((Bitboard.bit(square) & startRank) != 0) {
+            pushes |= Bitboard.pawnPush(color, pushes) & empty;
+        }
+        return pushes | (Bitboard.pawnAttacks(color, square) & enemies);
+    }
+
+    private void addMoves(int square, MoveList moves, long targetMask) {
+        long targets = targets(square) & targetMask;
+        if (targets == 0) {
+            return;
+        }
+        boolean pawn = board.getPiece(square).getPieceType() == PieceType.PAWN;
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            boolean capture = (enemies & Bitboard.bit(target)) != 0;
+            if (pawn && (Bitboard.bit(target) & (Bitboard.RANK_1 | Bitboard.RANK_8)) != 0) {
+                moves.add(Move.encode(square, target, PieceType.QUEEN, capture));
+                moves.add(Move.encode(square, target, PieceType.ROOK, capture));
+                moves.add(Move.encode(square, target, PieceType.BISHOP, capture));
+                moves.add(Move.encode(square, target, PieceType.KNIGHT, capture));
+            } else {
+                moves.add(Move.encode(square, target, null, capture));
+            }
+            targets &= targets - 1;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A growable list of packed moves (see Move) meant to be reused
+ * <p>
+ * Search and perft code needs one list per ply; forPly hands out lists from a
+ * per-thread stack so that walking a tree allocates nothing once the lists
+ * exist. A list from forPly belongs to the calling thread and is overwritten
+ * the next time the same ply is asked for.
+ */
+public class MoveList {
+    public static final int MAX_PLY = 128;
+
+    private static final ThreadLocal<MoveList[]> PLY_LISTS = ThreadLocal.withInitial(() -> new MoveList[MAX_PLY]);
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        //no legal position has more than 218 moves
+        moves = new int[256];
+    }
+
+    /**
+     * Gets this thread's reusable list for a ply, emptied
+     *
+     * @param ply depth in the tree, 0 to MAX_PLY - 1
+     * @return the list
+     */
+    public static MoveList forPly(int ply) {
+        MoveList[] lists = PLY_LISTS.get();
+        MoveList list = lists[ply];
+        if (list == null) {
+            list = new MoveList();
+            lists[ply] = list;
+        }
+        list.clear();
+        return list;
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            int[] grown = new int[moves.length * 2];
+            System.arraycopy(moves, 0, grown, 0, size);
+            moves = grown;
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the moves converted to ChessMoves
+     */
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder build = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                build.append(", ");
+            }
+            build.append(Move.toString(moves[i]));
+        }
+        return build.append("]").toString();
+    }
+}
@@ -0,0 +1,208 @@
+package chess;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Hands out the legal moves of one team in stages, generating each stage only
+ * when the one before it runs out
+ * <p>
+ * Captures come first, most valuable victim first and then least valuable
+ * attacker, followed by promotions that do not capture, then the quiet moves.
+ * A caller that stops early, such as a search that finds a cutoff in the
+ * captures or a hint that only wants one move, never pays for generating the
+ * rest. The search can also name a move to try before everything else (the
+ * transposition table's best move) and killer moves to put first among the
+ * quiet ones; each move is still handed out exactly once.
+ * <p>
+ * The board must not change while moves are being picked, other than by
+ * making a picked move and taking it back before the next one.
+ */
+public class MovePicker implements Iterator<ChessMove> {
+    private static final long LAST_RANKS = Bitboard.RANK_1 | Bitboard.RANK_8;
+
+    private enum Stage {
+        FIRST_MOVE,
+        CAPTURES,
+        PROMOTIONS,
+        QUIETS,
+        DONE
+    }
+
+    private final ChessBoard board;
+    private final MoveGenerator generator;
+    private final MoveList moves;
+    private final int[] scores;
+    private final int firstMove;
+    private final int[] killers;
+    private final boolean tacticalOnly;
+    private final long enemies;
+    private final long pawns;
+
+    private Stage stage = Stage.FIRST_MOVE;
+    private int index;
+    // a move already taken by hasNext but not yet handed out
+    private int peeked;
+    private boolean hasPeeked;
+
+    /**
+     * Picks the legal moves of the team to move in a game
+     */
+    public MovePicker(ChessGame game) {
+        this(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Picks the legal moves of a team on a board
+     */
+    public MovePicker(ChessBoard board, TeamColor color) {
+        this(board, new MoveGenerator(board, color), new MoveList(), new int[256], Move.NONE, null, false);
+    }
+
+    /**
+     * @param moves        list to generate into; it is overwritten
+     * @param scores       room to sort the captures in, at least as long as any move list
+     * @param firstMove    packed move to try first if it is legal here, or Move.NONE
+     * @param killers      quiet moves to try before the other quiet moves, or null
+     * @param tacticalOnly stop after the captures and promotions
+     */
+    MovePicker(ChessBoard board, MoveGenerator generator, MoveList moves, int[] scores, int firstMove,
+               int[] killers, boolean tacticalOnly) {
+        this.board = board;
+        this.generator = generator;
+        this.moves = moves;
+        this.scores = scores;
+        this.firstMove = firstMove != Move.NONE && generator.isLegal(firstMove) ? firstMove : Move.NONE;
+        this.killers = killers;
+        this.tacticalOnly = tacticalOnly;
+        TeamColor color = generator.getColor();
+        this.enemies = board.getColorMask(color == TeamColor.BLACK ? TeamColor.WHITE : TeamColor.BLACK);
+        this.pawns = board.getPieceMask(color, PieceType.PAWN);
+        moves.clear();
+        if (this.firstMove != Move.NONE) {
+            moves.add(this.firstMove);
+        }
+    }
+
+    /**
+     * @return the next packed move (see Move), or Move.NONE when there are no more
+     */
+    public int nextMove() {
+        if (hasPeeked) {
+            hasPeeked = false;
+            return peeked;
+        }
+        while (true) {
+            while (index < moves.size()) {
+                int move = stage == Stage.CAPTURES ? pickBestCapture() : moves.get(index++);
+                if (stage == Stage.FIRST_MOVE || move != firstMove) {
+                    return move;
+                }
+            }
+            if (stage == Stage.DONE) {
+                return Move.NONE;
+            }
+            nextStage();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!hasPeeked) {
+            peeked = nextMove();
+            hasPeeked = true;
+        }
+        return peeked != Move.NONE;
+    }
+
+    @Override
+    public ChessMove next() {
+        int move = nextMove();
+        if (move == Move.NONE) {
+            throw new NoSuchElementException();
+        }
+        return Move.toChessMove(move);
+    }
+
+    private void nextStage() {
+        moves.clear();
+        index = 0;
+        switch (stage) {
+            case FIRST_MOVE -> {
+                stage = Stage.CAPTURES;
+                generator.generate(moves, -1L, enemies); //every piece
+                scoreCaptures();
+            }
+            case CAPTURES -> {
+                stage = Stage.PROMOTIONS;
+                generator.generate(moves, pawns, ~enemies & LAST_RANKS);
+            }
+            case PROMOTIONS -> {
+                if (tacticalOnly) {
+                    stage = Stage.DONE;
+                    return;
+                }
+                stage = Stage.QUIETS;
+                generator.generate(moves, ~pawns, ~enemies);
+                generator.generate(moves, pawns, ~enemies & ~LAST_RANKS);
+                killersFirst();
+            }
+            default -> stage = Stage.DONE;
+        }
+    }
+
+    private void scoreCaptures() {
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            //most valuable victim first, then least valuable attacker
+            int score = Evaluation.value(board.getPiece(Move.to(move)).getPieceType()) * 8
+                    - Evaluation.value(board.getPiece(Move.from(move)).getPieceType()) / 100;
+            if (Move.isPromotion(move)) {
+                score += Evaluation.value(Move.promotion(move));
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best scored capture left into the next slot and returns it, so
+     * only as much of the list is sorted as the caller gets through
+     */
+    private int pickBestCapture() {
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        if (best != index) {
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        index++;
+        return move;
+    }
+
+    private void killersFirst() {
+        if (killers == null) {
+            return;
+        }
+        int front = 0;
+        for (int killer : killers) {
+            for (int i = front; i < moves.size(); i++) {
+                if (moves.get(i) == killer && killer != Move.NONE) {
+                    moves.set(i, moves.get(front));
+                    moves.set(front++, killer);
+                    break;
+                }
+            }
+        }
+    }
+}
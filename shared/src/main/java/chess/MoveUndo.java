@@ -0,0 +1,11 @@
+package chess;
+
+/**
+ * What ChessBoard.makeMove changed, so that unmakeMove can put it back
+ *
+ * @param move          the move that was made, including any promotion
+ * @param movedPiece    the piece that left the start square (before promotion)
+ * @param capturedPiece the piece that was on the end square, or null
+ */
+public record MoveUndo(ChessMove move, ChessPiece movedPiece, ChessPiece capturedPiece) {
+}
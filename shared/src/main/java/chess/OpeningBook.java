@@ -0,0 +1,202 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import chess.ChessPiece.PieceType;
+
+/**
+ * An opening book in the Polyglot .bin format, read through a memory-mapped
+ * file
+ * <p>
+ * The file is a list of 16-byte big-endian entries sorted by key: the 64-bit
+ * position key (compared unsigned), the move (16), a weight (16) and a learn
+ * field (32) that is ignored here. The move packs, from the low bits up, the
+ * target file and rank (3 each), the start file and rank (3 each) and the
+ * promotion piece (3: none, knight, bishop, rook, queen). Opening a book maps
+ * the file and reads nothing else, so even a book of hundreds of megabytes
+ * opens at once and takes no heap; each lookup is a binary search that touches
+ * a few pages.
+ * <p>
+ * Positions are keyed with PolyglotKey unless another hash is given, so books
+ * made by other programs can be read as they are; lookup(long) also takes a
+ * key worked out by the caller. Books written with write must use the same
+ * keys as the book is later opened with. Each entry found is checked with
+ * ChessGame.isLegal, so a key collision never hands out an illegal move.
+ */
+public class OpeningBook {
+    private static final int ENTRY_BYTES = 16;
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK,
+            PieceType.QUEEN};
+
+    /**
+     * A move from the book with how often it should be played relative to the
+     * other moves for the same position
+     */
+    public record BookMove(ChessMove move, int weight) {
+    }
+
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+    private final ToLongFunction<ChessGame> hash;
+
+    private OpeningBook(MappedByteBuffer entries, ToLongFunction<ChessGame> hash) {
+        this.entries = entries;
+        this.entryCount = entries.capacity() / ENTRY_BYTES;
+        this.hash = hash;
+    }
+
+    /**
+     * Opens a book keyed by PolyglotKey
+     *
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        return open(file, PolyglotKey::of);
+    }
+
+    /**
+     * Opens a book keyed by some other position hash, such as ChessGame.getPositionKey
+     *
+     * @param hash works out the key for a game's current position
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public static OpeningBook open(Path file, ToLongFunction<ChessGame> hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0) {
+                throw new IOException(file + " is not a Polyglot book: size is not a multiple of " + ENTRY_BYTES);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2GB");
+            }
+            //the mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), hash);
+        }
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Gets the book moves for the game's current position, heaviest first
+     *
+     * @return the legal moves the book holds for the position, empty if it has none
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        List<BookMove> moves = new ArrayList<>();
+        for (BookMove bookMove : lookup(hash.applyAsLong(game))) {
+            if (game.isLegal(bookMove.move())) {
+                moves.add(bookMove);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Gets every entry stored under a key, heaviest first, without checking
+     * the moves against any position
+     */
+    public List<BookMove> lookup(long key) {
+        List<BookMove> moves = new ArrayList<>();
+        for (int i = firstIndex(key); i < entryCount && entries.getLong(i * ENTRY_BYTES) == key; i++) {
+            int offset = i * ENTRY_BYTES;
+            moves.add(new BookMove(decodeMove(entries.getShort(offset + 8)),
+                    Short.toUnsignedInt(entries.getShort(offset + 10))));
+        }
+        moves.sort((a, b) -> Integer.compare(b.weight(), a.weight()));
+        return moves;
+    }
+
+    /**
+     * Binary search for the first entry whose key is not below the given key
+     */
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_BYTES), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static ChessMove decodeMove(short packed) {
+        int toColumn = (packed & 7) + 1;
+        int toRow = ((packed >>> 3) & 7) + 1;
+        int fromColumn = ((packed >>> 6) & 7) + 1;
+        int fromRow = ((packed >>> 9) & 7) + 1;
+        int promotion = (packed >>> 12) & 7;
+        return new ChessMove(ChessPosition.of(fromRow, fromColumn), ChessPosition.of(toRow, toColumn),
+                promotion < PROMOTIONS.length ? PROMOTIONS[promotion] : null);
+    }
+
+    private static short encodeMove(ChessMove move) {
+        int promotion = 0;
+        if (move.getPromotionPiece() != null) {
+            promotion = switch (move.getPromotionPiece()) {
+                case KNIGHT -> 1;
+                case BISHOP -> 2;
+                case ROOK -> 3;
+                case QUEEN -> 4;
+                default -> throw new IllegalArgumentException("cannot promote to " + move.getPromotionPiece());
+            };
+        }
+        ChessPosition from = move.getStartPosition();
+        ChessPosition to = move.getEndPosition();
+        return (short) ((to.getColumn() - 1) | (to.getRow() - 1) << 3 | (from.getColumn() - 1) << 6
+                | (from.getRow() - 1) << 9 | promotion << 12);
+    }
+
+    /**
+     * Writes a book in the Polyglot format, for example one gathered from
+     * finished games with each position's PolyglotKey
+     *
+     * @param moves the book moves for each position key; weights must fit in 16 bits
+     */
+    public static void write(Path file, Map<Long, ? extends Collection<BookMove>> moves) throws IOException {
+        TreeMap<Long, Collection<BookMove>> sorted = new TreeMap<>(Long::compareUnsigned);
+        sorted.putAll(moves);
+        int count = 0;
+        for (Collection<BookMove> bookMoves : sorted.values()) {
+            count += bookMoves.size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(count * ENTRY_BYTES);
+        for (Map.Entry<Long, Collection<BookMove>> entry : sorted.entrySet()) {
+            for (BookMove bookMove : entry.getValue()) {
+                if (bookMove.weight() < 0 || bookMove.weight() > 0xFFFF) {
+                    throw new IllegalArgumentException("weight out of range: " + bookMove.weight());
+                }
+                buffer.putLong(entry.getKey());
+                buffer.putShort(encodeMove(bookMove.move()));
+                buffer.putShort((short) bookMove.weight());
+                buffer.putInt(0);
+            }
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft spread over a ForkJoinPool, for loading every core with move generation
+ * <p>
+ * The tree is split into one task per move for the first few plies. Each task
+ * makes its move on its own copy of the board, so no board is ever touched by
+ * two threads, and the per-task node counts are added up as the tasks join.
+ * Below the split the count is the plain single-threaded Perft. Run it from the
+ * shared module with
+ * <pre>
+ * mvn -q -Pperft compile exec:java -Dexec.mainClass=chess.ParallelPerft -Dexec.args="start 6"
+ * </pre>
+ * which times the count with 1, 2, 4, ... threads up to the core count.
+ */
+public class ParallelPerft {
+    // plies to split into separate tasks; two plies gives ~400 tasks from the start position
+    private static final int SPLIT_PLIES = 2;
+
+    private ParallelPerft() {
+    }
+
+    private static class PerftTask extends RecursiveTask<Long> {
+        private final ChessBoard board;
+        private final ChessGame.TeamColor turn;
+        private final int depth;
+        private final int splitPlies;
+
+        PerftTask(ChessBoard board, ChessGame.TeamColor turn, int depth, int splitPlies) {
+            this.board = board;
+            this.turn = turn;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies == 0 || depth <= 2) {
+                return Perft.perft(board, turn, depth, 0);
+            }
+            //not MoveList.forPly, since this thread may run other tasks while it waits below
+            MoveList moves = new MoveList();
+            new MoveGenerator(board, turn).generate(moves);
+            ChessGame.TeamColor next = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                    : ChessGame.TeamColor.WHITE;
+            List<PerftTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                ChessBoard child = new ChessBoard(board);
+                child.makeMove(moves.get(i));
+                children.add(new PerftTask(child, next, depth - 1, splitPlies - 1));
+            }
+            long nodes = 0;
+            for (PerftTask task : invokeAll(children)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Counts perft nodes using the given pool. The game itself is not modified.
+     *
+     * @return the number of leaf nodes depth plies below the game's position
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(new ChessBoard(game.getBoard()), game.getTeamTurn(), depth, SPLIT_PLIES));
+    }
+
+    /**
+     * Counts perft nodes on the common pool
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Usage: ParallelPerft [position] [depth] [maxThreads]
+     */
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "start";
+        Perft.Position position = Perft.REFERENCE_POSITIONS.stream()
+                .filter(p -> p.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("unknown position " + name));
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : position.expected().length;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        ChessGame game = position.toGame();
+        Perft.perft(game, depth); //warm up the JIT so the first row is not penalized
+        double singleRate = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long start = System.nanoTime();
+                long nodes = perft(game, depth, pool);
+                double rate = nodes / ((System.nanoTime() - start) / 1e9);
+                if (threads == 1) {
+                    singleRate = rate;
+                }
+                System.out.printf("%2d threads: %,d nodes, %,.0f nodes/s, speedup %.2fx%n",
+                        threads, nodes, rate, rate / singleRate);
+            } finally {
+                pool.shutdown();
+            }
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches one position on several threads at once (Lazy SMP)
+ * <p>
+ * Every thread runs its own Search on its own copy of the board, from the same
+ * root, and the only thing they share is the lock-free transposition table.
+ * The threads do not divide the tree between them; they help each other
+ * through the table, where one thread's results save another from searching
+ * the same subtree and sharpen its move ordering. Half the helpers run one
+ * ply ahead of the main thread so the threads do not all stay in step.
+ * <p>
+ * The main search runs on the calling thread and owns the limits; when it
+ * finishes the helpers are stopped. The answer is taken from whichever thread
+ * finished the deepest search. Run the scaling report from the shared module
+ * with
+ * <pre>
+ * mvn -q -Pperft compile exec:java -Dexec.mainClass=chess.ParallelSearch -Dexec.args="1000"
+ * </pre>
+ * which searches each reference position for the given milliseconds with 1, 2,
+ * 4, ... threads up to the core count.
+ */
+public class ParallelSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+
+    /**
+     * @param threads number of threads to search with, at least 1
+     * @param table   the table the threads share
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one search thread");
+        }
+        this.table = table;
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table, i);
+        }
+        helpers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Creates a search over every core with its own 64 MB table
+     */
+    public ParallelSearch() {
+        this(Runtime.getRuntime().availableProcessors(), new TranspositionTable(64));
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    /**
+     * Searches for the best move for the side to move
+     *
+     * @param game   the position to search; it is not modified
+     * @param limits when to stop; a node limit counts the main thread's nodes only
+     * @return the deepest thread's result, with nodes summed over every thread
+     */
+    public Search.Result search(ChessGame game, Search.Limits limits) {
+        long start = System.currentTimeMillis();
+        table.newSearch();
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        for (Search search : searches) {
+            search.reset();
+        }
+        //helpers follow the depth and time limits, and are stopped when the main search ends
+        Search.Limits helperLimits = new Search.Limits(limits.depth(), limits.timeMillis(), 0);
+        List<Future<Search.Result>> running = new ArrayList<>(searches.length - 1);
+        for (int i = 1; i < searches.length; i++) {
+            Search search = searches[i];
+            //copied here, before the caller can go on to change the game
+            ChessBoard board = new ChessBoard(game.getBoard());
+            running.add(helpers.submit(() -> search.run(board, turn, helperLimits)));
+        }
+
+        Search.Result best = searches[0].run(new ChessBoard(game.getBoard()), turn, limits);
+        long nodes = best.nodes();
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+        for (Future<Search.Result> future : running) {
+            Search.Result result = join(future);
+            nodes += result.nodes();
+            if (result.depth() > best.depth() && result.bestMove() != null) {
+                best = result;
+            }
+        }
+        return new Search.Result(best.bestMove(), best.score(), best.depth(), nodes,
+                System.currentTimeMillis() - start, best.principalVariation());
+    }
+
+    private static Search.Result join(Future<Search.Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for search helpers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("search helper failed", e.getCause());
+        }
+    }
+
+    /**
+     * Shuts down the helper threads
+     */
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    /**
+     * Usage: ParallelSearch [millis] [maxThreads]
+     */
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = position.toGame();
+            new Search().search(game, Search.Limits.ofTime(millis)); //warm up the JIT
+            double singleRate = 0;
+            for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+                try (ParallelSearch search = new ParallelSearch(threads, new TranspositionTable(64))) {
+                    Search.Result result = search.search(game, Search.Limits.ofTime(millis));
+                    double rate = result.nodes() / (result.millis() / 1000.0);
+                    if (threads == 1) {
+                        singleRate = rate;
+                    }
+                    System.out.printf("%-10s %2d threads: depth %d, %,d nodes, %,.0f nodes/s, speedup %.2fx, %s%n",
+                            position.name(), threads, result.depth(), result.nodes(), rate, rate / singleRate,
+                            result.bestMove());
+                }
+                if (threads >= maxThreads) {
+                    break;
+                }
+            }
+        }
+    }
+}
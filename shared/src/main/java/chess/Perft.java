@@ -0,0 +1,210 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth (perft)
+ * <p>
+ * The counts for the reference positions are known, so perft checks move
+ * generation, and the time it takes gives a single nodes-per-second number
+ * for tracking move generation speed. Run it from the shared module with
+ * <pre>
+ * mvn -q -Pperft compile exec:java -Dexec.args="start 5"
+ * mvn -q -Pperft compile exec:java -Dexec.args="middlegame 3 divide"
+ * mvn -q -Pperft compile exec:java -Dexec.args="all"
+ * </pre>
+ * Castling and en passant are not part of this game, so where a published
+ * count includes either move the expected count here is lower: it is the
+ * published count less those moves and everything below them. Each adjusted
+ * count has the published figure next to it. The start position at depth 5
+ * (4,865,609 published, 258 of them en passant captures) and the endgame at
+ * depth 3 (2,812 published, 2 en passant captures) are adjusted; the other
+ * counts are the published ones.
+ */
+public class Perft {
+
+    /**
+     * A starting position with the known node count at each depth
+     *
+     * @param name     short name used on the command line
+     * @param diagram  board in the same |r|n|b| layout as ChessBoard.toString
+     * @param turn     side to move
+     * @param expected expected[d - 1] is the node count at depth d
+     */
+    public record Position(String name, String diagram, ChessGame.TeamColor turn, long[] expected) {
+        public ChessGame toGame() {
+            ChessGame game = new ChessGame();
+            game.setBoard(parseDiagram(diagram));
+            game.setTeamTurn(turn);
+            return game;
+        }
+    }
+
+    public static final List<Position> REFERENCE_POSITIONS = List.of(
+            new Position("start", """
+                    |r|n|b|q|k|b|n|r|
+                    |p|p|p|p|p|p|p|p|
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    |P|P|P|P|P|P|P|P|
+                    |R|N|B|Q|K|B|N|R|
+                    """, ChessGame.TeamColor.WHITE,
+                    //published depth 5: 4,865,609, less 258 en passant captures
+                    new long[]{20, 400, 8902, 197281, 4865351}),
+            new Position("endgame", """
+                    | | | | | | | | |
+                    | | |p| | | | | |
+                    | | | |p| | | | |
+                    |K|P| | | | | |r|
+                    | |R| | | |p| |k|
+                    | | | | | | | | |
+                    | | | | |P| |P| |
+                    | | | | | | | | |
+                    """, ChessGame.TeamColor.WHITE,
+                    //published depth 3: 2,812, less 2 en passant captures
+                    new long[]{14, 191, 2810}),
+            new Position("middlegame", """
+                    |r| | | | |r|k| |
+                    | |p|p| |q|p|p|p|
+                    |p| |n|p| |n| | |
+                    | | |b| |p| |B| |
+                    | | |B| |P| |b| |
+                    |P| |N|P| |N| | |
+                    | |P|P| |Q|P|P|P|
+                    |R| | | | |R|K| |
+                    """, ChessGame.TeamColor.WHITE, new long[]{46, 2079, 89890, 3894594})
+    );
+
+    private Perft() {
+    }
+
+    /**
+     * @return the number of leaf nodes depth plies below the game's position
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game.getBoard(), game.getTeamTurn(), depth, 0);
+    }
+
+    static long perft(ChessBoard board, ChessGame.TeamColor turn, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = MoveList.forPly(ply);
+        new MoveGenerator(board, turn).generate(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        ChessGame.TeamColor next = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            ChessPiece captured = board.makeMove(move);
+            nodes += perft(board, next, depth - 1, ply + 1);
+            board.unmakeMove(move, captured);
+        }
+        return nodes;
+    }
+
+    /**
+     * Prints the node count below each root move, then the total
+     *
+     * @return the total node count
+     */
+    public static long divide(ChessGame game, int depth) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        ChessGame.TeamColor next = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        MoveList moves = new MoveList();
+        game.getAllMoves(turn, moves);
+        long total = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            ChessPiece captured = board.makeMove(move);
+            long nodes = perft(board, next, depth - 1, 1);
+            board.unmakeMove(move, captured);
+            System.out.printf("%s: %d%n", Move.toString(move), nodes);
+            total += nodes;
+        }
+        System.out.printf("%nmoves: %d%nnodes: %d%n", moves.size(), total);
+        return total;
+    }
+
+    static ChessBoard parseDiagram(String diagram) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int column = 1;
+        for (int i = 0; i < diagram.length(); i++) {
+            char c = diagram.charAt(i);
+            switch (c) {
+                case '\n' -> {
+                    row--;
+                    column = 1;
+                }
+                case '|' -> {
+                }
+                case ' ' -> column++;
+                default -> {
+                    ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE
+                            : ChessGame.TeamColor.BLACK;
+                    ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+                        case 'k' -> ChessPiece.PieceType.KING;
+                        case 'q' -> ChessPiece.PieceType.QUEEN;
+                        case 'b' -> ChessPiece.PieceType.BISHOP;
+                        case 'n' -> ChessPiece.PieceType.KNIGHT;
+                        case 'r' -> ChessPiece.PieceType.ROOK;
+                        case 'p' -> ChessPiece.PieceType.PAWN;
+                        default -> throw new IllegalArgumentException("unknown piece " + c);
+                    };
+                    board.addPiece(ChessPosition.of(row, column), ChessPiece.of(color, type));
+                    column++;
+                }
+            }
+        }
+        return board;
+    }
+
+    private static Position findPosition(String name) {
+        for (Position position : REFERENCE_POSITIONS) {
+            if (position.name().equals(name)) {
+                return position;
+            }
+        }
+        throw new IllegalArgumentException("unknown position " + name);
+    }
+
+    private static void runTimed(Position position, int depth) {
+        ChessGame game = position.toGame();
+        long start = System.nanoTime();
+        long nodes = perft(game, depth);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long expected = depth <= position.expected().length ? position.expected()[depth - 1] : -1;
+        String check = expected < 0 ? "" : nodes == expected ? " ok" : " EXPECTED " + expected;
+        System.out.printf("%-10s depth %d: %,d nodes in %.3f s (%,.0f nodes/s)%s%n",
+                position.name(), depth, nodes, seconds, nodes / seconds, check);
+    }
+
+    /**
+     * Usage: Perft [position|all] [depth] [divide]
+     * <p>
+     * With "all" (the default) every reference position is run to the deepest
+     * known depth.
+     */
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "all";
+        if (name.equals("all")) {
+            for (Position position : REFERENCE_POSITIONS) {
+                runTimed(position, args.length > 1 ? Integer.parseInt(args[1]) : position.expected().length);
+            }
+            return;
+        }
+        Position position = findPosition(name);
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : position.expected().length;
+        if (args.length > 2 && args[2].equals("divide")) {
+            divide(position.toGame(), depth);
+        } else {
+            runTimed(position, depth);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package chess;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Packs a game into a fixed SIZE bytes for storage or the wire
+ * <p>
+ * The layout is
+ * <ul>
+ * <li>8 bytes: mask of the occupied squares (see Bitboard)</li>
+ * <li>16 bytes: one 4-bit code per occupied square, lowest square first and
+ * high nibble first; the top bit is set for black and the other three hold
+ * the PieceType ordinal. Unused nibbles are 0.</li>
+ * <li>1 byte: the TeamColor ordinal of the side to move</li>
+ * <li>2 bytes each: the halfmove clock and the move number, unsigned</li>
+ * </ul>
+ * so every position takes 29 bytes, where the starting position is about 1.5
+ * kilobytes as JSON. Numbers are written in the buffer's byte order
+ * (big-endian unless it was changed), and both ends must agree on it. A game
+ * can hold at most 32 pieces, which is all a game started from the usual setup
+ * ever has.
+ * <p>
+ * Encoding only reads the game and creates nothing. Decoding creates just the
+ * game and its board, with the arrays each of them keeps. Like a FEN, the
+ * encoding holds the position and not how the game got there, so a decoded
+ * game starts its repetition history afresh.
+ */
+public final class PositionCodec {
+    public static final int SIZE = 29;
+    public static final int MAX_PIECES = 32;
+
+    private static final int BLACK_BIT = 8;
+    private static final TeamColor[] TURNS = TeamColor.values();
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes the game at the buffer's position and moves it on by SIZE bytes
+     *
+     * @throws IllegalArgumentException if the board holds more than MAX_PIECES pieces
+     * @throws BufferOverflowException if fewer than SIZE bytes remain
+     */
+    public static void encode(ChessGame game, ByteBuffer buffer) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupiedMask();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("more than " + MAX_PIECES + " pieces on the board");
+        }
+        if (buffer.remaining() < SIZE) {
+            throw new BufferOverflowException();
+        }
+        buffer.putLong(occupied);
+        int written = 0;
+        int pending = 0;
+        long squares = occupied;
+        while (squares != 0) {
+            ChessPiece piece = board.getPiece(Long.numberOfTrailingZeros(squares));
+            int code = piece.getPieceType().ordinal() | (piece.getTeamColor() == TeamColor.BLACK ? BLACK_BIT : 0);
+            if ((written & 1) == 0) {
+                pending = code << 4;
+            } else {
+                buffer.put((byte) (pending | code));
+            }
+            written++;
+            squares &= squares - 1;
+        }
+        if ((written & 1) == 1) {
+            buffer.put((byte) pending);
+            written++;
+        }
+        for (; written < MAX_PIECES; written += 2) {
+            buffer.put((byte) 0);
+        }
+        buffer.put((byte) game.getTeamTurn().ordinal());
+        buffer.putShort((short) Math.min(game.getHalfmoveClock(), 0xFFFF));
+        buffer.putShort((short) Math.min(game.getFullmoveNumber(), 0xFFFF));
+    }
+
+    /**
+     * @return the game in a new SIZE byte array
+     */
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[SIZE];
+        encode(game, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /**
+     * Reads a game written by encode from the buffer's position and moves it
+     * on by SIZE bytes
+     *
+     * @throws IllegalArgumentException if the bytes do not hold a valid game
+     * @throws BufferUnderflowException if fewer than SIZE bytes remain
+     */
+    public static ChessGame decode(ByteBuffer buffer) {
+        if (buffer.remaining() < SIZE) {
+            throw new BufferUnderflowException();
+        }
+        long occupied = buffer.getLong();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("more than " + MAX_PIECES + " pieces on the board");
+        }
+        int piecesStart = buffer.position();
+        ChessBoard board = new ChessBoard();
+        int read = 0;
+        while (occupied != 0) {
+            int packed = buffer.get(piecesStart + (read >>> 1));
+            int code = (read & 1) == 0 ? (packed >>> 4) & 0xF : packed & 0xF;
+            int type = code & ~BLACK_BIT;
+            if (type >= TYPES.length) {
+                throw new IllegalArgumentException("unknown piece code " + code);
+            }
+            TeamColor color = (code & BLACK_BIT) != 0 ? TeamColor.BLACK : TeamColor.WHITE;
+            board.addPiece(ChessPosition.of(Long.numberOfTrailingZeros(occupied)), ChessPiece.of(color, TYPES[type]));
+            read++;
+            occupied &= occupied - 1;
+        }
+        buffer.position(piecesStart + MAX_PIECES / 2);
+        int turn = buffer.get();
+        if (turn < 0 || turn >= TURNS.length) {
+            throw new IllegalArgumentException("unknown side to move " + turn);
+        }
+        int halfmoveClock = Short.toUnsignedInt(buffer.getShort());
+        int fullmoveNumber = Short.toUnsignedInt(buffer.getShort());
+        return new ChessGame(board, TURNS[turn], halfmoveClock, Math.max(fullmoveNumber, 1));
+    }
+
+    /**
+     * Reads a game from the start of an array written by encode
+     */
+    public static ChessGame decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+}
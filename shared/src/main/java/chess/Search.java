@@ -0,0 +1,367 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Finds the best move in a position with negamax alpha-beta search
+ * <p>
+ * The search deepens one ply at a time until it runs out of depth, time or
+ * nodes, and answers with the last depth it finished. Each depth starts from
+ * the moves the previous one found best, through the transposition table, so
+ * the repeated shallow work is cheap and makes the deeper cutoffs come early.
+ * Below the last ply only captures and promotions are searched
+ * (quiescence), so a score is never taken in the middle of an exchange.
+ * <p>
+ * A Search is for one thread at a time and works on its own copy of the board,
+ * so the game passed in is never changed. The table can be shared.
+ */
+public class Search {
+    /**
+     * A score beyond any real evaluation; scores within MoveList.MAX_PLY of it
+     * mean mate, with MATE - n being mate in n plies
+     */
+    public static final int MATE = 31000;
+    private static final int INFINITY = 32000;
+    private static final int MAX_DEPTH = 64;
+    // how often, in nodes, the clock is read
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * When to stop searching; a limit of 0 means no limit of that kind
+     *
+     * @param depth      deepest iteration to search, in plies
+     * @param timeMillis wall clock budget for the whole search
+     * @param nodes      node budget for the whole search
+     */
+    public record Limits(int depth, long timeMillis, long nodes) {
+        public static Limits ofDepth(int depth) {
+            return new Limits(depth, 0, 0);
+        }
+
+        public static Limits ofTime(long timeMillis) {
+            return new Limits(0, timeMillis, 0);
+        }
+
+        public static Limits ofNodes(long nodes) {
+            return new Limits(0, 0, nodes);
+        }
+    }
+
+    /**
+     * The outcome of a search
+     *
+     * @param bestMove           the move to play, or null if the side to move has none
+     * @param score              centipawns from the mover's point of view, or a mate score
+     * @param depth              last depth searched to the end
+     * @param nodes              positions visited, including quiescence
+     * @param millis             time taken
+     * @param principalVariation the expected line of play, starting with bestMove
+     */
+    public record Result(ChessMove bestMove, int score, int depth, long nodes, long millis,
+                         List<ChessMove> principalVariation) {
+        public boolean isMate() {
+            return Math.abs(score) >= MATE - MoveList.MAX_PLY;
+        }
+
+        /**
+         * @return moves to mate, positive when the mover gives mate and
+         * negative when it gets mated, or 0 if the score is not a mate
+         */
+        public int mateIn() {
+            if (!isMate()) {
+                return 0;
+            }
+            int plies = MATE - Math.abs(score);
+            return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+        }
+    }
+
+    private final TranspositionTable table;
+    // 0 for a search on its own or the main thread of a ParallelSearch
+    private final int helperIndex;
+    private final int[][] principalVariation = new int[MoveList.MAX_PLY][MoveList.MAX_PLY];
+    private final int[] principalLength = new int[MoveList.MAX_PLY];
+    private final int[][] killers = new int[MoveList.MAX_PLY][2];
+    private final int[][] orderScores = new int[MoveList.MAX_PLY][256];
+
+    private ChessBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private int completedDepth;
+    private volatile boolean stopped;
+
+    public Search(TranspositionTable table) {
+        this(table, 0);
+    }
+
+    Search(TranspositionTable table, int helperIndex) {
+        this.table = table;
+        this.helperIndex = helperIndex;
+    }
+
+    /**
+     * Creates a search with its own 16 MB transposition table
+     */
+    public Search() {
+        this(new TranspositionTable(16));
+    }
+
+    /**
+     * Searches for the best move for the side to move
+     *
+     * @param game   the position to search; it is not modified
+     * @param limits when to stop
+     * @return the best move found and its principal variation
+     */
+    public Result search(ChessGame game, Limits limits) {
+        table.newSearch();
+        stopped = false;
+        return run(new ChessBoard(game.getBoard()), game.getTeamTurn(), limits);
+    }
+
+    /**
+     * Runs the iterative deepening loop on a board this search may keep
+     * changing until it returns. The stop flag is not cleared, so a stop that
+     * comes in before the run starts still counts.
+     */
+    Result run(ChessBoard board, TeamColor turn, Limits limits) {
+        long start = System.currentTimeMillis();
+        this.board = board;
+        nodes = 0;
+        nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        deadline = limits.timeMillis() > 0 ? start + limits.timeMillis() : Long.MAX_VALUE;
+        int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_DEPTH) : MAX_DEPTH;
+        for (int[] pair : killers) {
+            pair[0] = Move.NONE;
+            pair[1] = Move.NONE;
+        }
+
+        int[] bestLine = new int[0];
+        int bestScore = 0;
+        completedDepth = 0;
+        //odd numbered helpers run one ply ahead, so the threads spread over two depths
+        for (int depth = Math.min(1 + (helperIndex & 1), maxDepth); depth <= maxDepth; depth++) {
+            int score = negamax(turn, depth, 0, -INFINITY, INFINITY);
+            if (aborted()) {
+                //a depth cut short is thrown away
+                break;
+            }
+            bestScore = score;
+            bestLine = Arrays.copyOf(principalVariation[0], principalLength[0]);
+            completedDepth = depth;
+            long elapsed = System.currentTimeMillis() - start;
+            boolean mateFound = Math.abs(score) >= MATE - depth;
+            //the next depth takes several times longer than this one, so do not start what cannot finish
+            if (stopped || mateFound || (limits.timeMillis() > 0 && elapsed * 2 > limits.timeMillis())) {
+                break;
+            }
+        }
+
+        List<ChessMove> line = new ArrayList<>(bestLine.length);
+        for (int move : bestLine) {
+            line.add(Move.toChessMove(move));
+        }
+        return new Result(line.isEmpty() ? null : line.get(0), bestScore, completedDepth, nodes,
+                System.currentTimeMillis() - start, line);
+    }
+
+    /**
+     * Asks a running search to stop; it still returns the last finished depth.
+     * The first depth always finishes, so there is always a move to return.
+     * Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    void reset() {
+        stopped = false;
+    }
+
+    private int negamax(TeamColor color, int depth, int ply, int alpha, int beta) {
+        principalLength[ply] = ply;
+        if (countNode()) {
+            return 0;
+        }
+        MoveGenerator generator = new MoveGenerator(board, color);
+        boolean inCheck = generator.getCheckers() != 0;
+        if (inCheck) {
+            //look one ply further at checks so a mate just over the horizon is not missed
+            depth++;
+        }
+        if (depth <= 0 || ply >= MoveList.MAX_PLY - 1) {
+            return quiesce(color, ply, alpha, beta);
+        }
+
+        long key = positionKey(color);
+        long entry = table.probe(key);
+        int tableMove = Move.NONE;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                TranspositionTable.Bound bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.Bound.EXACT
+                        || (bound == TranspositionTable.Bound.LOWER && score >= beta)
+                        || (bound == TranspositionTable.Bound.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MovePicker picker = new MovePicker(board, generator, MoveList.forPly(ply), orderScores[ply], tableMove,
+                killers[ply], false);
+        TeamColor enemy = opponent(color);
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int move;
+        while ((move = picker.nextMove()) != Move.NONE) {
+            ChessPiece captured = board.makeMove(move);
+            int score = -negamax(enemy, depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove(move, captured);
+            if (aborted()) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && killers[ply][0] != move) {
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = move;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (bestMove == Move.NONE) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        TranspositionTable.Bound bound = bestScore >= beta ? TranspositionTable.Bound.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.Bound.EXACT : TranspositionTable.Bound.UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private int quiesce(TeamColor color, int ply, int alpha, int beta) {
+        principalLength[ply] = ply;
+        int standPat = board.evaluate(color);
+        if (standPat >= beta || ply >= MoveList.MAX_PLY - 1) {
+            return standPat;
+        }
+        alpha = Math.max(alpha, standPat);
+
+        //only the moves that change material
+        MovePicker picker = new MovePicker(board, new MoveGenerator(board, color), MoveList.forPly(ply),
+                orderScores[ply], Move.NONE, null, true);
+        TeamColor enemy = opponent(color);
+        int move;
+        while ((move = picker.nextMove()) != Move.NONE) {
+            if (losesMaterial(move)) {
+                continue;
+            }
+            if (countNode()) {
+                return 0;
+            }
+            ChessPiece captured = board.makeMove(move);
+            int score = -quiesce(enemy, ply + 1, -beta, -alpha);
+            board.unmakeMove(move, captured);
+            if (aborted()) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and checks the limits every so often
+     *
+     * @return true if the search should unwind now
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit) {
+            stopped = true;
+        } else if ((nodes & (CHECK_INTERVAL - 1)) == 0 && System.currentTimeMillis() >= deadline) {
+            stopped = true;
+        }
+        return aborted();
+    }
+
+    private boolean aborted() {
+        return stopped && completedDepth > 0;
+    }
+
+    /**
+     * @return true for a capture that the exchange on its square says is a losing one
+     */
+    private boolean losesMaterial(int move) {
+        if (!Move.isCapture(move) || Move.isPromotion(move)) {
+            return false;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        //taking something worth at least the capturing piece can never lose material
+        if (Evaluation.value(board.getPiece(to).getPieceType())
+                >= Evaluation.value(board.getPiece(from).getPieceType())) {
+            return false;
+        }
+        return StaticExchange.evaluate(board, from, to) < 0;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        int[] line = principalVariation[ply];
+        line[ply] = move;
+        int length = principalLength[ply + 1];
+        System.arraycopy(principalVariation[ply + 1], ply + 1, line, ply + 1, length - ply - 1);
+        principalLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private long positionKey(TeamColor color) {
+        long key = board.getZobristKey();
+        return color == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    // mate scores are stored relative to the node, not the root, so they stay right when reached by another path
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MoveList.MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MoveList.MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MoveList.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MoveList.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static TeamColor opponent(TeamColor color) {
+        return color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+}
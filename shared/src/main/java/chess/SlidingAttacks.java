@@ -0,0 +1,166 @@
+package chess;
+
+/**
+ * Magic bitboard lookup tables for rook and bishop attacks
+ * <p>
+ * For each square the occupancy bits that can block a slider (its relevant
+ * mask) are multiplied by a magic number, and the top bits of the product
+ * index a table holding the attack set for that occupancy. The magics below
+ * were found offline by random search; the tables are filled at class load and
+ * never written afterwards.
+ */
+final class SlidingAttacks {
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = {
+            0xA080001820400080L, 0x0040002000401000L, 0x0180300160008008L, 0x0480040800801001L,
+            0x2A00081084204200L, 0x0480018012003400L, 0x0600010082000428L, 0x420002250C018042L,
+            0x0040800040002080L, 0x000040002000500CL, 0x2002004022001080L, 0x0026002200400810L,
+            0x2000808008000400L, 0x0022000200883104L, 0x2C88808001000200L, 0x1112000080420104L,
+            0x0100908000400020L, 0x0080808020004000L, 0x0008410010200300L, 0x0014808010000801L,
+            0x0080050011004800L, 0x00D1010002080400L, 0xA08004000A300158L, 0x1000120005288244L,
+            0x020C400080248002L, 0x4020411200220082L, 0x8028100080200881L, 0x1210001100090020L,
+            0x005A005200084520L, 0x0080040080020080L, 0x0002000200840148L, 0x440B210A00006884L,
+            0x0880401028800080L, 0x2000802008804000L, 0x2160001041002900L, 0x201020400A001200L,
+            0x8018010009001104L, 0x2480800400800200L, 0x0000010804000210L, 0x0020008042003104L,
+            0x0000802040008000L, 0x0010002000404000L, 0x0001001020010041L, 0x8840100009010022L,
+            0x8048004020040400L, 0x2000040002008080L, 0x0803000200010084L, 0x0010004400820001L,
+            0xA881410720800100L, 0x0008208A00450600L, 0x0000802000100080L, 0x004408A240920200L,
+            0x6000800400080080L, 0x0020040002008080L, 0x8003000A00245500L, 0x0100842081004200L,
+            0x0000201840820102L, 0x0011002040008019L, 0x001181C20020501AL, 0x1C10014488201101L,
+            0x0002002004110802L, 0x0881000204000801L, 0x2000880142100094L, 0x000154050022C082L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = {
+            0x0060040410840210L, 0x4402080210860000L, 0x0004012C010000E8L, 0x0004410023014480L,
+            0x0001114000000009L, 0x8111012010008002L, 0x0241042120E80000L, 0x0484240208240280L,
+            0x4002400448088520L, 0x4010020408060448L, 0x0048080809102000L, 0xA940890401060208L,
+            0x0080040420124000L, 0x1020020210044040L, 0xC882008090101010L, 0x0108190448042400L,
+            0x001102200481080BL, 0x0010804254010C08L, 0x1608084046004210L, 0x1018001501410002L,
+            0x0084001280A02020L, 0x0212003900610420L, 0x0001002044026010L, 0x6006080080410800L,
+            0x0850041A40251401L, 0x94082430A3102200L, 0x0408110012040900L, 0x6310040000440008L,
+            0x011003004A200800L, 0x8C00848018080440L, 0x0494410004010148L, 0x0008510140840100L,
+            0x032A202002121200L, 0x010221100004B020L, 0x4000820100408408L, 0x4AC0200501080108L,
+            0x2120208400808020L, 0x0A02080200204050L, 0x00900200A0820080L, 0x00C500410A520303L,
+            0x8481086004221200L, 0x8080880818002300L, 0x0020209150001800L, 0x0014044208000080L,
+            0x8A00200200800410L, 0x88A204480200A088L, 0x0014514801018200L, 0x00A200E401000080L,
+            0x8081069050A88000L, 0x01020201018808DCL, 0x8100604208113000L, 0x0409200020880100L,
+            0x20C6008903040023L, 0x0121501002882002L, 0x0010500121240800L, 0x0020AA4C00408058L,
+            0x0022240048041000L, 0x2000010861042000L, 0x0002800100411000L, 0x4090000804208825L,
+            0x0080000812320208L, 0xC00008C011620220L, 0x00B4100282780210L, 0x0820021000608480L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    // squares strictly between two squares on a shared rank, file or diagonal,
+    // and the whole line through them; zero when the squares are not aligned
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    static {
+        ROOK_TABLE = buildTable(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildTable(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = Bitboard.bit(a) | Bitboard.bit(b);
+                if ((rook(a, 0) & Bitboard.bit(b)) != 0) {
+                    BETWEEN[a * 64 + b] = rook(a, Bitboard.bit(b)) & rook(b, Bitboard.bit(a));
+                    LINE[a * 64 + b] = (rook(a, 0) & rook(b, 0)) | ends;
+                } else if ((bishop(a, 0) & Bitboard.bit(b)) != 0) {
+                    BETWEEN[a * 64 + b] = bishop(a, Bitboard.bit(b)) & bishop(b, Bitboard.bit(a));
+                    LINE[a * 64 + b] = (bishop(a, 0) & bishop(b, 0)) | ends;
+                }
+            }
+        }
+    }
+
+    private SlidingAttacks() {
+    }
+
+    static long rook(int square, long occupied) {
+        long index = ((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square];
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) index];
+    }
+
+    static long bishop(int square, long occupied) {
+        long index = ((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square];
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) index];
+    }
+
+    static long between(int a, int b) {
+        return BETWEEN[a * 64 + b];
+    }
+
+    static long line(int a, int b) {
+        return LINE[a * 64 + b];
+    }
+
+    private static long[] buildTable(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantMask(square, directions);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            //enumerate every subset of the mask (carry-rippler) and store its attack set
+            long mask = masks[square];
+            long subset = 0;
+            do {
+                int index = (int) ((subset * magics[square]) >>> shifts[square]);
+                table[offsets[square] + index] = slowAttacks(square, subset, directions);
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+        return table;
+    }
+
+    private static long relevantMask(int square, int[][] directions) {
+        //squares that can block the slider; the last square of each ray never blocks anything beyond it
+        long mask = 0;
+        for (int[] direction : directions) {
+            int row = Bitboard.row(square) + direction[0];
+            int col = Bitboard.column(square) + direction[1];
+            while (inBounds(row + direction[0], col + direction[1])) {
+                mask |= Bitboard.bit(Bitboard.square(row, col));
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = Bitboard.row(square) + direction[0];
+            int col = Bitboard.column(square) + direction[1];
+            while (inBounds(row, col)) {
+                long b = Bitboard.bit(Bitboard.square(row, col));
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean inBounds(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+}
@@ -0,0 +1,201 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size hash table of search results keyed by ChessGame.getPositionKey
+ * <p>
+ * The table is one preallocated long[] and is safe to share between games and
+ * threads without locks. Each entry is two longs: the key XOR the data, then
+ * the data. A reader only trusts an entry whose two words XOR back to the key
+ * it asked for, so a slot torn by two threads writing at once reads as a miss
+ * instead of as a wrong result.
+ * <p>
+ * Entries live in buckets of two. A store overwrites an entry for the same
+ * position, otherwise it evicts whichever entry is worth less, where worth is
+ * the searched depth minus a penalty for each search (newSearch) since the
+ * entry was written.
+ * <p>
+ * Packed data layout, low bits first: move (16), score (16, signed),
+ * depth (8), bound (2), generation (6). The move is whatever 16-bit move
+ * encoding the caller uses, with 0 meaning no move.
+ */
+public class TranspositionTable {
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_LONGS = 2 * ENTRY_LONGS;
+    private static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+    private static final int AGE_PENALTY = 8;
+
+    /**
+     * How a stored score relates to the true score of the position
+     */
+    public enum Bound {
+        EXACT,
+        LOWER,
+        UPPER
+    }
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Creates a table using at most the given amount of memory, rounded down to
+     * a power of two number of buckets
+     *
+     * @param megabytes memory budget, at least 1
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("transposition table needs at least 1 MB");
+        }
+        long buckets = Long.highestOneBit(megabytes * 1024L * 1024L / BUCKET_BYTES);
+        buckets = Math.min(buckets, 1L << 28); //keeps the backing array under the Java array size limit
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+        bucketMask = (int) (buckets - 1);
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key the position key
+     * @return the packed entry data, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int bucket = bucketIndex(key);
+        for (int i = 0; i < BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[bucket + i + 1];
+            if (data != 0 && (table[bucket + i] ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        misses.increment();
+        return 0;
+    }
+
+    /**
+     * Stores a search result, possibly evicting another entry in the same bucket
+     *
+     * @param key   the position key
+     * @param move  best move found in the caller's 16-bit encoding, or 0
+     * @param score score from the point of view of the side to move
+     * @param depth remaining search depth the score was found with, 0 to 255
+     * @param bound whether the score is exact or a bound
+     */
+    public void store(long key, int move, int score, int depth, Bound bound) {
+        int bucket = bucketIndex(key);
+        int currentGeneration = generation;
+        int target = -1;
+        int lowestWorth = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[bucket + i + 1];
+            if (data == 0 || (table[bucket + i] ^ data) == key) {
+                target = i;
+                break;
+            }
+            int age = (currentGeneration - generation(data)) & 63;
+            int worth = depth(data) - AGE_PENALTY * age;
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                target = i;
+            }
+        }
+        long data = pack(move, score, depth, bound, currentGeneration);
+        //data first, so a reader racing with us sees either the old pair or a mismatch
+        table[bucket + target + 1] = data;
+        table[bucket + target] = key ^ data;
+        stores.increment();
+    }
+
+    /**
+     * Marks the start of a new search so older entries become easier to replace
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 63;
+    }
+
+    /**
+     * Empties the table and resets the counters
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        hits.reset();
+        misses.reset();
+        stores.reset();
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    public static Bound bound(long data) {
+        return Bound.values()[((int) (data >>> 40) & 3) - 1];
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 42) & 63;
+    }
+
+    private static long pack(int move, int score, int depth, Bound bound, int generation) {
+        //bound is stored off by one so that no real entry packs to 0
+        return (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (long) Math.min(Math.max(depth, 0), 255) << 32
+                | (long) (bound.ordinal() + 1) << 40
+                | (long) generation << 42;
+    }
+
+    private int bucketIndex(long key) {
+        //the low bits pick the bucket; the full key is still checked on probe
+        return ((int) key & bucketMask) * BUCKET_LONGS;
+    }
+
+    /**
+     * @return number of entries the table can hold
+     */
+    public long getCapacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Estimates how full the table is from the first thousand entries
+     *
+     * @return used entries per thousand
+     */
+    public int getUsagePermill() {
+        int sample = (int) Math.min(1000, getCapacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (table[i * ENTRY_LONGS + 1] != 0) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+}
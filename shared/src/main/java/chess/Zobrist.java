@@ -0,0 +1,35 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions
+ * <p>
+ * A position's key is the XOR of one key per piece on the board, plus the
+ * side key when black is to move. Because XOR undoes itself, adding or
+ * removing a piece updates the key with a single XOR. The keys come from a
+ * fixed seed so the same position hashes the same in every run and process.
+ */
+final class Zobrist {
+    private static final long[] PIECE_KEYS = new long[12 * 64];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDC4E55L);
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex color index * 6 + piece type ordinal
+     * @param square     square index (see Bitboard)
+     */
+    static long pieceKey(int pieceIndex, int square) {
+        return PIECE_KEYS[pieceIndex * 64 + square];
+    }
+}
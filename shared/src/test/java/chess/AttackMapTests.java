@@ -0,0 +1,116 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AttackMapTests {
+    private static final ChessGame.TeamColor[] TEAMS = {ChessGame.TeamColor.WHITE, ChessGame.TeamColor.BLACK};
+
+    private static void assertMapsCurrent(ChessBoard board, String context) {
+        for (ChessGame.TeamColor team : TEAMS) {
+            Assertions.assertEquals(board.attacksFrom(team, board.getOccupiedMask()), board.getAttackedSquares(team),
+                    context + " " + team);
+        }
+    }
+
+    @Test
+    public void mapsFollowMakeAndUnmake() throws InvalidMoveException {
+        RandomGames.forEachPosition(11, 10, 60, (game, moves) -> {
+            ChessBoard board = game.getBoard();
+            //fill the cache, then check that every change of the board clears it
+            assertMapsCurrent(board, "before");
+            long white = board.getAttackedSquares(ChessGame.TeamColor.WHITE);
+            long black = board.getAttackedSquares(ChessGame.TeamColor.BLACK);
+            for (ChessMove chessMove : moves) {
+                MoveUndo undo = board.makeMove(chessMove);
+                assertMapsCurrent(board, "after " + chessMove);
+                board.unmakeMove(undo);
+                Assertions.assertEquals(white, board.getAttackedSquares(ChessGame.TeamColor.WHITE));
+                Assertions.assertEquals(black, board.getAttackedSquares(ChessGame.TeamColor.BLACK));
+
+                int move = Move.fromChessMove(chessMove, board);
+                ChessPiece captured = board.makeMove(move);
+                assertMapsCurrent(board, "after packed " + chessMove);
+                board.unmakeMove(move, captured);
+                assertMapsCurrent(board, "after undoing " + chessMove);
+            }
+        });
+    }
+
+    @Test
+    public void mapsFollowBoardEdits() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        long white = board.getAttackedSquares(ChessGame.TeamColor.WHITE);
+        Assertions.assertTrue(board.isAttacked(new ChessPosition(3, 1), ChessGame.TeamColor.WHITE));
+        //with the b1 knight, the b2 pawn and the c1 bishop gone nothing reaches a3
+        board.addPiece(new ChessPosition(1, 2), null);
+        board.addPiece(new ChessPosition(2, 2), null);
+        board.addPiece(new ChessPosition(1, 3), null);
+        Assertions.assertFalse(board.isAttacked(new ChessPosition(3, 1), ChessGame.TeamColor.WHITE));
+        Assertions.assertNotEquals(white, board.getAttackedSquares(ChessGame.TeamColor.WHITE));
+        assertMapsCurrent(board, "after addPiece");
+
+        board.setSquares(new ChessBoard().getSquares());
+        Assertions.assertEquals(0, board.getAttackedSquares(ChessGame.TeamColor.WHITE));
+        board.resetBoard();
+        Assertions.assertEquals(white, board.getAttackedSquares(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void boardAttackedEverywhereIsStillReported() {
+        //every square is attacked by a neighbouring queen, which is the map the cache uses to mean "not computed"
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            board.addPiece(ChessPosition.of(square), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        }
+        Assertions.assertEquals(-1L, board.getAttackedSquares(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(-1L, board.getAttackedSquares(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPosition(1, 1), null);
+        assertMapsCurrent(board, "after removing a queen");
+    }
+
+    @Test
+    public void concurrentReadersSeeWholeMaps() throws InterruptedException, ExecutionException {
+        ChessGame check = Fen.parse("4k3/8/8/8/8/8/8/4R2K b - - 0 1");
+        long attacks = check.getBoard().attacksFrom(ChessGame.TeamColor.WHITE, check.getBoard().getOccupiedMask());
+        int readers = 4;
+        int rounds = 5000;
+        //fresh copies, so every round starts with nothing cached
+        ChessGame[] games = new ChessGame[rounds];
+        for (int round = 0; round < rounds; round++) {
+            games[round] = new ChessGame(check);
+        }
+        AtomicInteger arrived = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                running.add(pool.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        arrived.incrementAndGet();
+                        while (arrived.get() < readers * (round + 1)) {
+                            Thread.yield();
+                        }
+                        Assertions.assertTrue(games[round].isInCheck(ChessGame.TeamColor.BLACK), "round " + round);
+                        Assertions.assertEquals(attacks,
+                                games[round].getBoard().getAttackedSquares(ChessGame.TeamColor.WHITE), "round " + round);
+                    }
+                }));
+            }
+            for (Future<?> reader : running) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
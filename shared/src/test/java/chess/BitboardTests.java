@@ -0,0 +1,136 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BitboardTests {
+
+    private static long walkRays(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = Bitboard.row(square) + direction[0];
+            int col = Bitboard.column(square) + direction[1];
+            while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                attacks |= Bitboard.bit(Bitboard.square(row, col));
+                if ((occupied & Bitboard.bit(Bitboard.square(row, col))) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    @Test
+    public void slidingTablesMatchRayWalk() {
+        int[][] rookDirections = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        int[][] bishopDirections = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        Random random = new Random(240);
+        for (int i = 0; i < 20000; i++) {
+            int square = random.nextInt(64);
+            long occupied = random.nextLong() & random.nextLong();
+            Assertions.assertEquals(walkRays(square, occupied, rookDirections), Bitboard.rookAttacks(square, occupied));
+            Assertions.assertEquals(walkRays(square, occupied, bishopDirections), Bitboard.bishopAttacks(square, occupied));
+        }
+    }
+
+    @Test
+    public void leaperTables() {
+        //knight in the corner, king in the middle
+        Assertions.assertEquals(Bitboard.bit(Bitboard.square(2, 3)) | Bitboard.bit(Bitboard.square(3, 2)),
+                Bitboard.knightAttacks(Bitboard.square(1, 1)));
+        Assertions.assertEquals(8, Long.bitCount(Bitboard.kingAttacks(Bitboard.square(4, 4))));
+        Assertions.assertEquals(Bitboard.bit(Bitboard.square(3, 2)),
+                Bitboard.pawnAttacks(ChessGame.TeamColor.WHITE, Bitboard.square(2, 1)));
+        Assertions.assertEquals(Bitboard.bit(Bitboard.square(6, 7)),
+                Bitboard.pawnAttacks(ChessGame.TeamColor.BLACK, Bitboard.square(7, 8)));
+    }
+
+    @Test
+    public void masksFollowBoardChanges() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertEquals(0xFFFFL, board.getColorMask(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0xFFFFL << 48, board.getColorMask(ChessGame.TeamColor.BLACK));
+
+        board.movePiece(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        long pawns = board.getPieceMask(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        Assertions.assertEquals(0, pawns & Bitboard.bit(Bitboard.square(2, 5)));
+        Assertions.assertNotEquals(0, pawns & Bitboard.bit(Bitboard.square(4, 5)));
+
+        var copy = new ChessBoard();
+        copy.setSquares(board.getSquares());
+        Assertions.assertEquals(board, copy);
+        Assertions.assertEquals(board.getOccupiedMask(), copy.getOccupiedMask());
+    }
+
+    @Test
+    public void zobristKeyMatchesRebuild() throws InvalidMoveException {
+        var game = new ChessGame();
+        long start = game.getPositionKey();
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        Assertions.assertNotEquals(start, game.getPositionKey(), "side to move should change the key");
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        Assertions.assertEquals(start, game.getPositionKey());
+
+        var rebuilt = new ChessBoard();
+        rebuilt.setSquares(game.getBoard().getSquares());
+        Assertions.assertEquals(game.getBoard().getZobristKey(), rebuilt.getZobristKey());
+    }
+
+    @Test
+    public void concurrentReadersOfLoadedBoardAgree() throws InterruptedException, ExecutionException {
+        Gson gson = new Gson();
+        ChessGame game = Perft.REFERENCE_POSITIONS.get(2).toGame();
+        String json = gson.toJson(game);
+        long key = game.getPositionKey();
+        long occupied = game.getBoard().getOccupiedMask();
+        int readers = 4;
+        int rounds = 5000;
+        //a loaded board builds its index on first read, which here happens on every thread at once
+        ChessGame[] loaded = new ChessGame[rounds];
+        for (int round = 0; round < rounds; round++) {
+            loaded[round] = gson.fromJson(json, ChessGame.class);
+        }
+        AtomicInteger arrived = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                running.add(pool.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        //spin rather than park, so the readers start each round together
+                        arrived.incrementAndGet();
+                        while (arrived.get() < readers * (round + 1)) {
+                            Thread.yield();
+                        }
+                        loaded[round].isInCheck(ChessGame.TeamColor.WHITE);
+                        Assertions.assertEquals(key, loaded[round].getPositionKey(), "round " + round);
+                    }
+                }));
+            }
+            for (Future<?> reader : running) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        for (int round = 0; round < rounds; round++) {
+            Assertions.assertEquals(key, loaded[round].getPositionKey(), "round " + round);
+            Assertions.assertEquals(occupied, loaded[round].getBoard().getOccupiedMask(), "round " + round);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DrawTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    /**
+     * Both sides move a knight out and back, bringing the starting position back
+     */
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(move(1, 2, 3, 3));
+        game.makeMove(move(8, 2, 6, 3));
+        game.makeMove(move(3, 3, 1, 2));
+        game.makeMove(move(6, 3, 8, 2));
+    }
+
+    private static ChessGame kingsAnd(String... pieces) {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        for (String piece : pieces) {
+            ChessGame.TeamColor color = Character.isUpperCase(piece.charAt(0))
+                    ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessPiece.PieceType type = switch (Character.toLowerCase(piece.charAt(0))) {
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(new ChessPosition(piece.charAt(2) - '0', piece.charAt(1) - 'a' + 1), ChessPiece.of(color, type));
+        }
+        game.setBoard(board);
+        return game;
+    }
+
+    @Test
+    public void threefoldAndFivefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        shuffleKnights(game);
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        Assertions.assertEquals(ChessGame.GameState.ONGOING, game.getGameState(ChessGame.TeamColor.WHITE));
+        shuffleKnights(game);
+        Assertions.assertEquals(3, game.getRepetitionCount());
+        Assertions.assertEquals(ChessGame.GameState.THREEFOLD_REPETITION, game.getGameState(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.getGameState(ChessGame.TeamColor.WHITE).isDraw());
+        shuffleKnights(game);
+        shuffleKnights(game);
+        Assertions.assertEquals(ChessGame.GameState.FIVEFOLD_REPETITION, game.getGameState(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void repetitionByAnotherRoute() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        //the knight comes back to c3 by way of d5, with black to move both times
+        game.makeMove(move(1, 2, 3, 3));
+        game.makeMove(move(8, 2, 6, 3));
+        game.makeMove(move(3, 3, 5, 4));
+        game.makeMove(move(6, 3, 8, 2));
+        game.makeMove(move(5, 4, 3, 3));
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        game.makeMove(move(8, 7, 6, 6));
+        Assertions.assertEquals(1, game.getRepetitionCount());
+    }
+
+    @Test
+    public void pawnMoveResetsHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        Assertions.assertEquals(4, game.getHalfmoveClock());
+        game.makeMove(move(2, 5, 4, 5));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getRepetitionCount());
+    }
+
+    @Test
+    public void fiftyAndSeventyFiveMoveRules() throws InvalidMoveException {
+        //the rooks walk their ranks in cycles of 7 and 6 squares, so no position
+        //comes back a third time within 75 moves; the e-file is left to the kings
+        int[] whiteCols = {1, 2, 3, 4, 6, 7, 8};
+        int[] blackCols = {1, 2, 3, 4, 6, 7};
+        ChessGame game = kingsAnd("Ra2", "ra7");
+        for (int ply = 0; ply < 150; ply++) {
+            int fullMove = ply / 2;
+            if (ply % 2 == 0) {
+                game.makeMove(move(2, whiteCols[fullMove % 7], 2, whiteCols[(fullMove + 1) % 7]));
+            } else {
+                game.makeMove(move(7, blackCols[fullMove % 6], 7, blackCols[(fullMove + 1) % 6]));
+            }
+            Assertions.assertEquals(ply + 1, game.getHalfmoveClock());
+            ChessGame.GameState expected = ply + 1 >= 150 ? ChessGame.GameState.SEVENTY_FIVE_MOVE_RULE
+                    : ply + 1 >= 100 ? ChessGame.GameState.FIFTY_MOVE_RULE : ChessGame.GameState.ONGOING;
+            Assertions.assertEquals(expected, game.getGameState(game.getTeamTurn()), "after ply " + (ply + 1));
+        }
+    }
+
+    @Test
+    public void insufficientMaterial() {
+        Assertions.assertTrue(kingsAnd().isInsufficientMaterial());
+        Assertions.assertTrue(kingsAnd("Nc3").isInsufficientMaterial());
+        Assertions.assertTrue(kingsAnd("bc8").isInsufficientMaterial());
+        //c1 and f8 are both dark squares
+        Assertions.assertTrue(kingsAnd("Bc1", "bf8").isInsufficientMaterial());
+        Assertions.assertFalse(kingsAnd("Bc1", "bc8").isInsufficientMaterial());
+        Assertions.assertFalse(kingsAnd("Nc3", "nf6").isInsufficientMaterial());
+        Assertions.assertFalse(kingsAnd("Pa2").isInsufficientMaterial());
+        Assertions.assertFalse(kingsAnd("ra8").isInsufficientMaterial());
+        Assertions.assertFalse(new ChessGame().isInsufficientMaterial());
+        Assertions.assertEquals(ChessGame.GameState.INSUFFICIENT_MATERIAL,
+                kingsAnd("Nc3").getGameState(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void historySurvivesJson() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        shuffleKnights(game);
+        Gson gson = new Gson();
+        ChessGame loaded = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(3, loaded.getRepetitionCount());
+        Assertions.assertEquals(8, loaded.getHalfmoveClock());
+        ChessGame copy = new ChessGame(loaded);
+        shuffleKnights(copy);
+        Assertions.assertEquals(4, copy.getRepetitionCount());
+        Assertions.assertEquals(3, loaded.getRepetitionCount());
+    }
+
+    @Test
+    public void settingBoardStartsFreshHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.setBoard(kingsAnd("Ra1").getBoard());
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+    }
+
+    @Test
+    public void readingLeavesTheGameAlone() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.makeMove(move(1, 2, 3, 3));
+        //an edit made straight to the board puts the history out of step with it
+        game.getBoard().addPiece(new ChessPosition(2, 1), null);
+        Gson gson = new Gson();
+        String before = gson.toJson(game);
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        game.getGameState(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(before, gson.toJson(game));
+
+        //the next move starts a fresh history from the edited position
+        game.makeMove(move(8, 2, 6, 3));
+        Assertions.assertEquals(1, game.getHalfmoveClock());
+    }
+
+    @Test
+    public void settingTurnStartsFreshHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+    }
+}
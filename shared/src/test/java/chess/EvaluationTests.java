@@ -0,0 +1,49 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EvaluationTests {
+
+    @Test
+    public void startingPositionIsEven() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(0, game.getScore());
+        Assertions.assertEquals(0, game.getScore(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void scoreFollowsMaterial() {
+        ChessGame game = new ChessGame();
+        game.getBoard().addPiece(new ChessPosition(8, 4), null);
+        Assertions.assertTrue(game.getScore() > 800, "white is a queen up");
+        Assertions.assertEquals(-game.getScore(), game.getScore(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void mirroredPositionsScoreTheSame() {
+        ChessBoard board = Perft.REFERENCE_POSITIONS.get(2).toGame().getBoard();
+        ChessBoard mirrored = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece != null) {
+                    ChessGame.TeamColor other = piece.getTeamColor() == ChessGame.TeamColor.WHITE
+                            ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                    mirrored.addPiece(new ChessPosition(9 - row, col), ChessPiece.of(other, piece.getPieceType()));
+                }
+            }
+        }
+        Assertions.assertEquals(board.evaluate(ChessGame.TeamColor.WHITE),
+                mirrored.evaluate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void incrementalScoreMatchesRebuild() throws InvalidMoveException {
+        RandomGames.forEachPosition(240, 20, 80, (game, moves) -> {
+            ChessBoard rebuilt = new ChessBoard();
+            rebuilt.setSquares(game.getBoard().getSquares());
+            Assertions.assertEquals(rebuilt.evaluate(ChessGame.TeamColor.WHITE), game.getScore());
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+public class FenTests {
+
+    // boards from the passoff tests, with their piece placement written out by hand
+    private static final Map<String, String> PASSOFF_BOARDS = Map.of(
+            """
+                    |r|n|b|q|k|b|n|r|
+                    |p|p|p|p|p|p|p|p|
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    |P|P|P|P|P|P|P|P|
+                    |R|N|B|Q|K|B|N|R|
+                    """, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+            """
+                    | | | | | | | |k|
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | |K| | | |r| | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    """, "7k/8/8/8/8/1K3r2/8/8",
+            """
+                    | | | |K| | | | |
+                    | | | | | | | | |
+                    | | | |k| | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    |B| | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    """, "3K4/8/3k4/8/8/B7/8/8",
+            """
+                    | | | | | | | | |
+                    | | |b|q| | | | |
+                    | | | | | | | | |
+                    | | | |p| | | |k|
+                    | | | | | |K| | |
+                    | | |r| | | | | |
+                    | | | | |n| | | |
+                    | | | | | | | | |
+                    """, "8/2bq4/8/3p3k/5K2/2r5/4n3/8",
+            """
+                    | | | |k| | | | |
+                    | | | |P|P| | | |
+                    | |P| | |P|P| | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | |K| | | | |
+                    """, "3k4/3PP3/1P2PP2/8/8/8/8/3K4",
+            """
+                    | | | | | |r|k| |
+                    | | | | | |P| |p|
+                    | | | |N| | | | |
+                    | | | | |B| | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | |n| | | |
+                    |K| | | | | | | |
+                    """, "5rk1/5P1p/3N4/4B3/8/8/4n3/K7"
+    );
+
+    @Test
+    public void passoffBoardsRoundTrip() {
+        for (Map.Entry<String, String> entry : PASSOFF_BOARDS.entrySet()) {
+            ChessBoard board = loadBoard(entry.getKey());
+            Assertions.assertEquals(entry.getValue(), Fen.write(board));
+            Assertions.assertEquals(board, Fen.parseBoard(entry.getValue()));
+            for (ChessGame.TeamColor turn : ChessGame.TeamColor.values()) {
+                ChessGame game = new ChessGame();
+                game.setBoard(board);
+                game.setTeamTurn(turn);
+                ChessGame parsed = Fen.parse(Fen.write(game));
+                Assertions.assertEquals(board, parsed.getBoard());
+                Assertions.assertEquals(turn, parsed.getTeamTurn());
+            }
+        }
+    }
+
+    @Test
+    public void startingPosition() {
+        Assertions.assertEquals(Fen.START, Fen.write(new ChessGame()));
+        ChessGame game = Fen.parse(Fen.START);
+        Assertions.assertEquals(new ChessGame().getBoard(), game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    public void perftPositionsMatchPublishedFen() {
+        ChessGame endgame = Perft.REFERENCE_POSITIONS.get(1).toGame();
+        Assertions.assertEquals("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", Fen.write(endgame));
+        //the short four-field form is accepted as well
+        ChessGame parsed = Fen.parse("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -");
+        Assertions.assertEquals(Perft.REFERENCE_POSITIONS.get(2).toGame().getBoard(), parsed.getBoard());
+    }
+
+    @Test
+    public void clockAndMoveNumberRoundTrip() throws InvalidMoveException {
+        RandomGames.forEachPosition(23, 20, 60, (game, moves) -> {
+            String fen = Fen.write(game);
+            ChessGame parsed = Fen.parse(fen);
+            Assertions.assertEquals(game.getBoard(), parsed.getBoard());
+            Assertions.assertEquals(game.getTeamTurn(), parsed.getTeamTurn());
+            Assertions.assertEquals(game.getHalfmoveClock(), parsed.getHalfmoveClock());
+            Assertions.assertEquals(game.getFullmoveNumber(), parsed.getFullmoveNumber());
+            Assertions.assertEquals(fen, Fen.write(parsed));
+        });
+    }
+
+    @Test
+    public void parsedClockCountsTowardsFiftyMoves() {
+        ChessGame game = Fen.parse("7k/8/8/8/8/8/8/R6K w - - 100 80");
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertEquals(80, game.getFullmoveNumber());
+        Assertions.assertEquals(ChessGame.GameState.FIFTY_MOVE_RULE, game.getGameState(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void rejectsMalformedFen() {
+        for (String fen : List.of("", "8/8/8/8/8/8/8 w - -", "9/8/8/8/8/8/8/8 w - -", "rnbqkbnrp/8/8/8/8/8/8/8 w - -",
+                "8/8/8/8/8/8/8/8 x - -", "8/8/8/8/8/8/8/7x w - -", "8/8/8/8/8/8/8/8 w", "8/8/8/8/8/8/8/8 w - - a 1",
+                "8/8/8/8/8/8/8/8 w - - 0 0", "8/8/8/8/8/8/8/8 w - - 0 1 extra")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen), fen);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class GameStateTests {
+
+    private static ChessGame game(String diagram, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(Perft.parseDiagram(diagram));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    private static void assertState(ChessGame.GameState expected, ChessGame game, ChessGame.TeamColor team) {
+        Assertions.assertEquals(expected, game.getGameState(team));
+        Assertions.assertEquals(expected == ChessGame.GameState.CHECKMATE, game.isInCheckmate(team));
+        Assertions.assertEquals(expected == ChessGame.GameState.STALEMATE, game.isInStalemate(team));
+        Assertions.assertEquals(expected == ChessGame.GameState.CHECK || expected == ChessGame.GameState.CHECKMATE,
+                game.isInCheck(team));
+    }
+
+    @Test
+    public void ongoing() {
+        assertState(ChessGame.GameState.ONGOING, new ChessGame(), ChessGame.TeamColor.WHITE);
+        assertState(ChessGame.GameState.ONGOING, new ChessGame(), ChessGame.TeamColor.BLACK);
+    }
+
+    @Test
+    public void checkWithAWayOut() {
+        ChessGame game = game("""
+                | | | |k| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P| |
+                | | | |Q|K| | | |
+                """, ChessGame.TeamColor.BLACK);
+        //the queen on d1 checks down the d-file; the king can step aside
+        assertState(ChessGame.GameState.CHECK, game, ChessGame.TeamColor.BLACK);
+        assertState(ChessGame.GameState.ONGOING, game, ChessGame.TeamColor.WHITE);
+    }
+
+    @Test
+    public void backRankCheckmate() {
+        ChessGame game = game("""
+                | | | |R| | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                | | | | | | |K| |
+                """, ChessGame.TeamColor.BLACK);
+        assertState(ChessGame.GameState.CHECKMATE, game, ChessGame.TeamColor.BLACK);
+    }
+
+    @Test
+    public void blockableCheckIsNotMate() {
+        ChessGame game = game("""
+                | | | |R| | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                | | | | |r| |K| |
+                """, ChessGame.TeamColor.BLACK);
+        //the rook on e1 can come back to e8 and block
+        assertState(ChessGame.GameState.CHECK, game, ChessGame.TeamColor.BLACK);
+    }
+
+    @Test
+    public void stalemateNeedsNoCheck() {
+        ChessGame game = game("""
+                | | | | | | | |k|
+                | | | | | | | | |
+                | | | | | | |Q|K|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        //no legal move and not in check is stalemate, never checkmate
+        assertState(ChessGame.GameState.STALEMATE, game, ChessGame.TeamColor.BLACK);
+    }
+
+    @Test
+    public void noMovesForPiecesStillNotStalemateWhileKingCanMove() {
+        ChessGame game = game("""
+                | | | | | | | |k|
+                | | | | | | | |p|
+                | | | | | | | |P|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        assertState(ChessGame.GameState.ONGOING, game, ChessGame.TeamColor.BLACK);
+    }
+}
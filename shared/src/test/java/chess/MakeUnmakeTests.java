@@ -0,0 +1,117 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MakeUnmakeTests {
+
+    private static void assertRestored(ChessBoard expected, long expectedKey, ChessBoard board, String move) {
+        Assertions.assertEquals(expected, board, move);
+        Assertions.assertEquals(expectedKey, board.getZobristKey(), move);
+        Assertions.assertEquals(expected.getOccupiedMask(), board.getOccupiedMask(), move);
+        for (ChessGame.TeamColor color : new ChessGame.TeamColor[]{ChessGame.TeamColor.WHITE, ChessGame.TeamColor.BLACK}) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                Assertions.assertEquals(expected.getPieceMask(color, type), board.getPieceMask(color, type), move);
+            }
+        }
+    }
+
+    @Test
+    public void undoRecordRestoresBoard() throws InvalidMoveException {
+        RandomGames.forEachPosition(3, 10, 60, (game, moves) -> {
+            ChessBoard board = game.getBoard();
+            ChessBoard before = new ChessBoard(board);
+            long key = board.getZobristKey();
+            for (ChessMove move : moves) {
+                MoveUndo undo = board.makeMove(move);
+                Assertions.assertNotEquals(key, board.getZobristKey(), move.toString());
+                board.unmakeMove(undo);
+                assertRestored(before, key, board, move.toString());
+            }
+        });
+    }
+
+    @Test
+    public void packedMovesRestoreBoard() throws InvalidMoveException {
+        RandomGames.forEachPosition(4, 10, 60, (game, moves) -> {
+            ChessBoard board = game.getBoard();
+            ChessBoard before = new ChessBoard(board);
+            long key = board.getZobristKey();
+            int score = board.evaluate(ChessGame.TeamColor.WHITE);
+            for (ChessMove chessMove : moves) {
+                int move = Move.fromChessMove(chessMove, board);
+                Assertions.assertEquals(chessMove, Move.toChessMove(move));
+                ChessPiece captured = board.makeMove(move);
+                Assertions.assertEquals(captured != null, Move.isCapture(move), chessMove.toString());
+                board.unmakeMove(move, captured);
+                assertRestored(before, key, board, chessMove.toString());
+                Assertions.assertEquals(score, board.evaluate(ChessGame.TeamColor.WHITE), chessMove.toString());
+            }
+        });
+    }
+
+    @Test
+    public void promotionIsTakenBack() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(7, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        ChessBoard before = new ChessBoard(board);
+        long key = board.getZobristKey();
+
+        MoveUndo undo = board.makeMove(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1),
+                ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(ChessPiece.PieceType.QUEEN, board.getPiece(new ChessPosition(8, 1)).getPieceType());
+        Assertions.assertEquals(ChessPiece.PieceType.PAWN, undo.movedPiece().getPieceType());
+        Assertions.assertEquals(ChessPiece.PieceType.ROOK, undo.capturedPiece().getPieceType());
+        board.unmakeMove(undo);
+        assertRestored(before, key, board, "b7a8q");
+    }
+
+    private static int scanForKing(ChessBoard board, ChessGame.TeamColor color) {
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null && piece.getTeamColor() == color && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                return square;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void kingSquareFollowsTheKing() throws InvalidMoveException {
+        RandomGames.forEachPosition(5, 10, 60, (game, moves) -> {
+            ChessBoard board = game.getBoard();
+            for (ChessGame.TeamColor color : new ChessGame.TeamColor[]{ChessGame.TeamColor.WHITE, ChessGame.TeamColor.BLACK}) {
+                Assertions.assertEquals(scanForKing(board, color), board.getKingSquare(color));
+            }
+            for (ChessMove move : moves) {
+                MoveUndo undo = board.makeMove(move);
+                Assertions.assertEquals(scanForKing(board, game.getTeamTurn()), board.getKingSquare(game.getTeamTurn()),
+                        move.toString());
+                board.unmakeMove(undo);
+            }
+        });
+    }
+
+    @Test
+    public void kingSquareAfterBoardEdits() {
+        ChessBoard board = new ChessBoard();
+        Assertions.assertEquals(-1, board.getKingSquare(ChessGame.TeamColor.WHITE));
+        Assertions.assertNull(board.getKingPosition(ChessGame.TeamColor.WHITE));
+        board.resetBoard();
+        Assertions.assertEquals(new ChessPosition(1, 5), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(new ChessPosition(8, 5), board.getKingPosition(ChessGame.TeamColor.BLACK));
+
+        board.addPiece(new ChessPosition(1, 5), null);
+        Assertions.assertEquals(-1, board.getKingSquare(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPosition(4, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        Assertions.assertEquals(new ChessPosition(4, 4), board.getKingPosition(ChessGame.TeamColor.WHITE));
+
+        //a whole new array handed over through setSquares is picked up too
+        ChessPiece[][] squares = new ChessPiece[8][8];
+        squares[2][6] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        board.setSquares(squares);
+        Assertions.assertEquals(new ChessPosition(3, 7), board.getKingPosition(ChessGame.TeamColor.BLACK));
+        Assertions.assertNull(board.getKingPosition(ChessGame.TeamColor.WHITE));
+    }
+}
@@ -0,0 +1,43 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MateSolverTests {
+
+    @Test
+    public void solvesPuzzleSet() throws InvalidMoveException {
+        MateSolver solver = new MateSolver(16);
+        for (MateSolver.Puzzle puzzle : MateSolver.PUZZLES) {
+            ChessGame game = puzzle.toGame();
+            String before = game.getBoard().toString();
+            MateSolver.Result result = solver.solve(game, puzzle.mateIn(), 1_000_000);
+            Assertions.assertEquals(MateSolver.Status.MATE, result.status(), puzzle.name());
+            Assertions.assertEquals(puzzle.mateIn(), result.mateIn(), puzzle.name());
+            Assertions.assertEquals(before, game.getBoard().toString(), "solver must not touch the game");
+
+            //the main line is legal and ends in mate
+            Assertions.assertEquals(2 * puzzle.mateIn() - 1, result.mainLine().size(), puzzle.name());
+            for (ChessMove move : result.mainLine()) {
+                game.makeMove(move);
+            }
+            Assertions.assertTrue(game.isInCheckmate(game.getTeamTurn()), puzzle.name());
+        }
+    }
+
+    @Test
+    public void reportsNoMateWithoutChecks() {
+        //the starting position has no checks at all within two moves
+        MateSolver.Result result = new MateSolver(4).solve(new ChessGame(), 2, 1_000_000);
+        Assertions.assertEquals(MateSolver.Status.NO_MATE, result.status());
+        Assertions.assertTrue(result.mainLine().isEmpty());
+    }
+
+    @Test
+    public void stopsAtNodeBudget() {
+        MateSolver.Puzzle longest = MateSolver.PUZZLES.get(MateSolver.PUZZLES.size() - 1);
+        MateSolver.Result result = new MateSolver(4).solve(longest.toGame(), longest.mateIn(), 20);
+        Assertions.assertEquals(MateSolver.Status.UNKNOWN, result.status());
+        Assertions.assertTrue(result.nodes() <= 20);
+    }
+}
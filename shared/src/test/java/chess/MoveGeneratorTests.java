@@ -0,0 +1,183 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class MoveGeneratorTests {
+
+    private static Set<ChessMove> legalMoves(ChessBoard board, ChessGame.TeamColor color) {
+        return new HashSet<>(new MoveGenerator(board, color).allMoves());
+    }
+
+    /**
+     * The slow way: every move the piece rules allow, kept if it does not
+     * leave the mover's king attacked
+     */
+    private static Set<ChessMove> referenceMoves(ChessBoard board, ChessGame.TeamColor color) {
+        Set<ChessMove> result = new HashSet<>();
+        ChessGame.TeamColor enemy = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        for (int square = 0; square < 64; square++) {
+            ChessPosition position = Bitboard.position(square);
+            ChessPiece piece = board.getPiece(position);
+            if (piece == null || piece.getTeamColor() != color) {
+                continue;
+            }
+            for (ChessMove move : piece.pieceMoves(board, position)) {
+                MoveUndo undo = board.makeMove(move);
+                if (!board.isAttacked(board.getKingPosition(color), enemy)) {
+                    result.add(move);
+                }
+                board.unmakeMove(undo);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void matchesReferenceAlongRandomGames() throws InvalidMoveException {
+        RandomGames.forEachPosition(4, 20, 80, (game, moves) -> {
+            ChessBoard board = game.getBoard();
+            Assertions.assertEquals(referenceMoves(board, game.getTeamTurn()), legalMoves(board, game.getTeamTurn()),
+                    board.toString());
+        });
+    }
+
+    @Test
+    public void generatedMovesNeverLeaveKingInCheck() {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = position.toGame();
+            ChessBoard board = game.getBoard();
+            ChessGame.TeamColor color = game.getTeamTurn();
+            ChessGame.TeamColor enemy = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                    : ChessGame.TeamColor.WHITE;
+            long key = board.getZobristKey();
+            MoveList moves = new MoveList();
+            game.getAllMoves(color, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                ChessPiece captured = board.makeMove(move);
+                Assertions.assertFalse(board.isAttacked(board.getKingPosition(color), enemy), Move.toString(move));
+                board.unmakeMove(move, captured);
+                Assertions.assertEquals(key, board.getZobristKey(), Move.toString(move));
+            }
+        }
+    }
+
+    @Test
+    public void pinnedPieceStaysOnItsLine() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | |r| | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R| | | |
+                | | | | |K| | | |
+                """);
+        MoveGenerator generator = new MoveGenerator(board, ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(Bitboard.bit(Bitboard.square(new ChessPosition(2, 5))), generator.getPinned());
+        for (ChessMove move : generator.movesFrom(Bitboard.square(new ChessPosition(2, 5)))) {
+            Assertions.assertEquals(5, move.getEndPosition().getColumn(), move.toString());
+        }
+        Assertions.assertEquals(6, generator.movesFrom(Bitboard.square(new ChessPosition(2, 5))).size());
+    }
+
+    @Test
+    public void checkMustBeAnswered() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | |r| | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P| | | | | | | |
+                | | |B| |K| | | |
+                """);
+        MoveGenerator generator = new MoveGenerator(board, ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(1, Long.bitCount(generator.getCheckers()));
+        //the bishop can only block on e3, the pawn has nothing to offer
+        Assertions.assertEquals(Set.of(new ChessMove(new ChessPosition(1, 3), new ChessPosition(3, 5), null)),
+                new HashSet<>(generator.movesFrom(Bitboard.square(new ChessPosition(1, 3)))));
+        Assertions.assertTrue(generator.movesFrom(Bitboard.square(new ChessPosition(2, 1))).isEmpty());
+    }
+
+    @Test
+    public void doubleCheckLeavesOnlyKingMoves() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | |r| | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | |b| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | | |
+                """);
+        MoveGenerator generator = new MoveGenerator(board, ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(2, Long.bitCount(generator.getCheckers()));
+        for (ChessMove move : generator.allMoves()) {
+            Assertions.assertEquals(new ChessPosition(1, 5), move.getStartPosition(), move.toString());
+        }
+        Assertions.assertEquals(referenceMoves(board, ChessGame.TeamColor.WHITE), legalMoves(board, ChessGame.TeamColor.WHITE));
+    }
+
+    private static void assertInterned(ChessPosition position) {
+        Assertions.assertSame(ChessPosition.of(position.getRow(), position.getColumn()), position, position.toString());
+    }
+
+    @Test
+    public void movesUseSharedPositions() throws InvalidMoveException {
+        RandomGames.forEachPosition(8, 1, 60, (game, moves) -> {
+            for (ChessMove move : moves) {
+                assertInterned(move.getStartPosition());
+                assertInterned(move.getEndPosition());
+            }
+            for (MovePicker picker = game.moveIterator(game.getTeamTurn()); picker.hasNext(); ) {
+                ChessMove move = picker.next();
+                assertInterned(move.getStartPosition());
+                assertInterned(move.getEndPosition());
+            }
+            //the piece rules reuse the caller's start position but share every target
+            for (ChessMove some : moves) {
+                ChessPosition start = new ChessPosition(some.getStartPosition().getRow(),
+                        some.getStartPosition().getColumn());
+                for (ChessMove move : game.getBoard().getPiece(start).pieceMoves(game.getBoard(), start)) {
+                    assertInterned(move.getEndPosition());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void promotionUsesSharedPieces() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | |k| | | |
+                |P| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """);
+        for (ChessMove move : new MoveGenerator(board, ChessGame.TeamColor.WHITE).movesFrom(Bitboard.square(7, 1))) {
+            MoveUndo undo = board.makeMove(move);
+            Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, move.getPromotionPiece()),
+                    board.getPiece(move.getEndPosition()));
+            board.unmakeMove(undo);
+            int packed = Move.fromChessMove(move, board);
+            ChessPiece captured = board.makeMove(packed);
+            Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, move.getPromotionPiece()),
+                    board.getPiece(move.getEndPosition()));
+            board.unmakeMove(packed, captured);
+            Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                    board.getPiece(new ChessPosition(7, 1)));
+        }
+    }
+}
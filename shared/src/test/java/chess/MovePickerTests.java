@@ -0,0 +1,113 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+public class MovePickerTests {
+
+    private static List<Integer> pickAll(MovePicker picker) {
+        List<Integer> picked = new ArrayList<>();
+        int move;
+        while ((move = picker.nextMove()) != Move.NONE) {
+            picked.add(move);
+        }
+        return picked;
+    }
+
+    @Test
+    public void picksEveryLegalMoveOnce() throws InvalidMoveException {
+        RandomGames.forEachPosition(240, 20, 60, (game, moves) -> {
+            MoveList expected = new MoveList();
+            game.getAllMoves(game.getTeamTurn(), expected);
+            List<Integer> picked = pickAll(new MovePicker(game));
+            Assertions.assertEquals(expected.size(), picked.size());
+            Assertions.assertEquals(picked.size(), new HashSet<>(picked).size(), "a move was picked twice");
+            for (int move : picked) {
+                Assertions.assertTrue(expected.contains(move));
+            }
+        });
+    }
+
+    @Test
+    public void capturesComeFirstByVictimValue() {
+        ChessGame game = Perft.REFERENCE_POSITIONS.get(2).toGame();
+        List<Integer> picked = pickAll(new MovePicker(game));
+        boolean quiet = false;
+        int lastVictim = Integer.MAX_VALUE;
+        ChessBoard board = game.getBoard();
+        for (int move : picked) {
+            if (Move.isCapture(move)) {
+                Assertions.assertFalse(quiet, "capture after a quiet move");
+                int victim = Evaluation.value(board.getPiece(Move.to(move)).getPieceType());
+                Assertions.assertTrue(victim <= lastVictim, "captures out of order");
+                lastVictim = victim;
+            } else {
+                quiet = true;
+            }
+        }
+        Assertions.assertTrue(Move.isCapture(picked.get(0)));
+    }
+
+    @Test
+    public void promotionsBeforeQuietMoves() {
+        ChessGame game = new ChessGame();
+        game.setBoard(Perft.parseDiagram("""
+                | | | | | | | |k|
+                | |P| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """));
+        List<Integer> picked = pickAll(new MovePicker(game));
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(Move.isPromotion(picked.get(i)));
+        }
+        Assertions.assertEquals(4 + 3, picked.size());
+    }
+
+    @Test
+    public void firstMoveIsNotRepeated() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        int first = Move.fromChessMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null), board);
+        int[] killers = {Move.fromChessMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null), board),
+                Move.NONE};
+        MovePicker picker = new MovePicker(board, new MoveGenerator(board, ChessGame.TeamColor.WHITE),
+                new MoveList(), new int[256], first, killers, false);
+        List<Integer> picked = pickAll(picker);
+        Assertions.assertEquals(20, picked.size());
+        Assertions.assertEquals(first, picked.get(0));
+        Assertions.assertEquals(killers[0], picked.get(1));
+        Assertions.assertEquals(20, new HashSet<>(picked).size());
+    }
+
+    @Test
+    public void illegalFirstMoveIsIgnored() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        int bogus = Move.encode(Bitboard.square(2, 5), Bitboard.square(5, 5), null, false);
+        MovePicker picker = new MovePicker(board, new MoveGenerator(board, ChessGame.TeamColor.WHITE),
+                new MoveList(), new int[256], bogus, null, false);
+        Assertions.assertFalse(pickAll(picker).contains(bogus));
+    }
+
+    @Test
+    public void iteratorMatchesNextMove() {
+        ChessGame game = Perft.REFERENCE_POSITIONS.get(2).toGame();
+        List<ChessMove> iterated = new ArrayList<>();
+        MovePicker picker = game.moveIterator(game.getTeamTurn());
+        while (picker.hasNext()) {
+            Assertions.assertTrue(picker.hasNext(), "hasNext must not consume a move");
+            iterated.add(picker.next());
+        }
+        Assertions.assertEquals(46, iterated.size());
+        Assertions.assertEquals(new HashSet<>(game.getAllMoves(game.getTeamTurn())), new HashSet<>(iterated));
+    }
+}
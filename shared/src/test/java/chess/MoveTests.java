@@ -0,0 +1,79 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+
+public class MoveTests {
+
+    @Test
+    public void encodingRoundTrip() {
+        var board = new ChessBoard();
+        board.addPiece(new ChessPosition(7, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        var chessMove = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT);
+
+        int move = Move.fromChessMove(chessMove, board);
+        Assertions.assertTrue(Move.isCapture(move));
+        Assertions.assertTrue(Move.isPromotion(move));
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, Move.promotion(move));
+        Assertions.assertEquals(chessMove, Move.toChessMove(move));
+        Assertions.assertEquals("b7a8n", Move.toString(move));
+        Assertions.assertEquals(0, move >>> 16, "moves should fit in 16 bits");
+    }
+
+    @Test
+    public void makeUnmakePackedMoves() {
+        var game = new ChessGame();
+        var board = game.getBoard();
+        var start = new ChessBoard();
+        start.resetBoard();
+        long startKey = board.getZobristKey();
+
+        MoveList moves = MoveList.forPly(0);
+        game.getAllMoves(ChessGame.TeamColor.WHITE, moves);
+        Assertions.assertEquals(20, moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            ChessPiece captured = board.makeMove(moves.get(i));
+            Assertions.assertNotEquals(start, board);
+            board.unmakeMove(moves.get(i), captured);
+            Assertions.assertEquals(start, board);
+            Assertions.assertEquals(startKey, board.getZobristKey());
+        }
+    }
+
+    @Test
+    public void isLegalAgreesWithValidMoves() throws InvalidMoveException {
+        ChessPiece.PieceType[] promotions = {null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT,
+                ChessPiece.PieceType.KING, ChessPiece.PieceType.PAWN};
+        RandomGames.forEachPosition(240, 10, 40, (game, moves) -> {
+            for (int from = 0; from < 64; from++) {
+                ChessPosition start = Bitboard.position(from);
+                ChessPiece piece = game.getBoard().getPiece(start);
+                if (piece == null) {
+                    continue;
+                }
+                Collection<ChessMove> valid = game.validMoves(start);
+                for (int to = 0; to < 64; to++) {
+                    for (ChessPiece.PieceType promotion : promotions) {
+                        ChessMove move = new ChessMove(start, Bitboard.position(to), promotion);
+                        boolean expected = piece.getTeamColor() == game.getTeamTurn() && valid.contains(move);
+                        Assertions.assertEquals(expected, game.isLegal(move), move.toString());
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void isLegalRejectsMalformedMoves() {
+        var game = new ChessGame();
+        Assertions.assertFalse(game.isLegal(null));
+        Assertions.assertFalse(game.isLegal(new ChessMove(new ChessPosition(2, 5), new ChessPosition(9, 5), null)));
+        Assertions.assertFalse(game.isLegal(new ChessMove(new ChessPosition(0, 5), new ChessPosition(2, 5), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null)),
+                "black cannot move on white's turn");
+    }
+}
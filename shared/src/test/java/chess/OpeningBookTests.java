@@ -0,0 +1,90 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class OpeningBookTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    public void findsWeightedLegalMoves(@TempDir Path dir) throws IOException, InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessGame afterE4 = new ChessGame();
+        afterE4.makeMove(move(2, 5, 4, 5));
+        Map<Long, List<OpeningBook.BookMove>> moves = new HashMap<>();
+        moves.put(PolyglotKey.of(game), List.of(
+                new OpeningBook.BookMove(move(2, 4, 4, 4), 5),
+                new OpeningBook.BookMove(move(2, 5, 4, 5), 10),
+                //black's reply stored under the wrong position is not handed out
+                new OpeningBook.BookMove(move(7, 3, 5, 3), 7)));
+        moves.put(PolyglotKey.of(afterE4), List.of(new OpeningBook.BookMove(move(7, 3, 5, 3), 3)));
+        Path file = dir.resolve("book.bin");
+        OpeningBook.write(file, moves);
+        Assertions.assertEquals(4 * 16, Files.size(file));
+
+        OpeningBook book = OpeningBook.open(file);
+        Assertions.assertEquals(4, book.size());
+        Assertions.assertEquals(List.of(new OpeningBook.BookMove(move(2, 5, 4, 5), 10),
+                new OpeningBook.BookMove(move(2, 4, 4, 4), 5)), book.lookup(game));
+        Assertions.assertEquals(3, book.lookup(PolyglotKey.of(game)).size());
+        Assertions.assertEquals(List.of(new OpeningBook.BookMove(move(7, 3, 5, 3), 3)), book.lookup(afterE4));
+        afterE4.makeMove(move(7, 3, 5, 3));
+        Assertions.assertTrue(book.lookup(afterE4).isEmpty());
+    }
+
+    @Test
+    public void binarySearchUsesUnsignedKeyOrder(@TempDir Path dir) throws IOException {
+        Random random = new Random(25);
+        Map<Long, List<OpeningBook.BookMove>> moves = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            //keys with the top bit set sort after the rest, as in Polyglot books
+            moves.put(random.nextLong(), List.of(new OpeningBook.BookMove(move(2, 1, 3, 1), i)));
+        }
+        Path file = dir.resolve("book.bin");
+        OpeningBook.write(file, moves);
+        OpeningBook book = OpeningBook.open(file);
+        for (Map.Entry<Long, List<OpeningBook.BookMove>> entry : moves.entrySet()) {
+            Assertions.assertEquals(entry.getValue(), book.lookup(entry.getKey()));
+        }
+        Assertions.assertTrue(book.lookup(12345L).isEmpty());
+    }
+
+    @Test
+    public void readsPromotions(@TempDir Path dir) throws IOException {
+        ChessGame game = Fen.parse("7k/P7/8/8/8/8/8/7K w - - 0 1");
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                ChessPiece.PieceType.KNIGHT);
+        Path file = dir.resolve("book.bin");
+        OpeningBook.write(file, Map.of(PolyglotKey.of(game), List.of(new OpeningBook.BookMove(promotion, 1))));
+        Assertions.assertEquals(promotion, OpeningBook.open(file).lookup(game).get(0).move());
+    }
+
+    @Test
+    public void opensBooksKeyedByAnotherHash(@TempDir Path dir) throws IOException {
+        ChessGame game = new ChessGame();
+        ChessMove e4 = move(2, 5, 4, 5);
+        Path file = dir.resolve("book.bin");
+        OpeningBook.write(file, Map.of(game.getPositionKey(), List.of(new OpeningBook.BookMove(e4, 1))));
+        Assertions.assertTrue(OpeningBook.open(file).lookup(game).isEmpty());
+        Assertions.assertEquals(e4, OpeningBook.open(file, ChessGame::getPositionKey).lookup(game).get(0).move());
+    }
+
+    @Test
+    public void rejectsTruncatedFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("book.bin");
+        Files.write(file, new byte[20]);
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+}
@@ -0,0 +1,44 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTests {
+
+    @Test
+    public void referencePositions() {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            //keep the test quick; the CLI runs the deeper counts
+            int depth = Math.min(3, position.expected().length);
+            Assertions.assertEquals(position.expected()[depth - 1], Perft.perft(position.toGame(), depth),
+                    position.name() + " depth " + depth);
+        }
+    }
+
+    @Test
+    public void perftLeavesBoardUnchanged() {
+        ChessGame game = Perft.REFERENCE_POSITIONS.get(2).toGame();
+        String before = game.getBoard().toString();
+        long key = game.getPositionKey();
+        Perft.perft(game, 3);
+        Assertions.assertEquals(key, game.getPositionKey());
+        Assertions.assertEquals(before, game.getBoard().toString());
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+                int depth = Math.min(4, position.expected().length);
+                ChessGame game = position.toGame();
+                Assertions.assertEquals(position.expected()[depth - 1], ParallelPerft.perft(game, depth, pool),
+                        position.name() + " depth " + depth);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class PolyglotKeyTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    public void startingPosition() {
+        Assertions.assertEquals(0x463B96181691FC9CL, PolyglotKey.of(new ChessGame()));
+        Assertions.assertEquals(0x463B96181691FC9CL, PolyglotKey.of(Fen.parse(Fen.START)));
+    }
+
+    // the published test sequence from the Polyglot book format, up to the
+    // point where it needs an en passant key
+    @Test
+    public void publishedOpeningKeys() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        Assertions.assertEquals(0x823C9B50FD114196L, PolyglotKey.of(game));
+        game.makeMove(move(7, 4, 5, 4));
+        Assertions.assertEquals(0x0756B94461C50FB0L, PolyglotKey.of(game));
+        game.makeMove(move(4, 5, 5, 5));
+        Assertions.assertEquals(0x662FAFB965DB29D4L, PolyglotKey.of(game));
+    }
+
+    @Test
+    public void kingMovesDropCastlingKeys() throws InvalidMoveException {
+        //e4 d5 e5 f5, after which the white king move clears the en passant square
+        ChessGame game = Fen.parse("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w - - 0 3");
+        game.makeMove(move(1, 5, 2, 5));
+        Assertions.assertEquals(0x652A607CA3F242C1L, PolyglotKey.of(game));
+        game.makeMove(move(8, 5, 7, 6));
+        Assertions.assertEquals(0x00FDD303C946BDD9L, PolyglotKey.of(game));
+    }
+
+    @Test
+    public void readsBooksMadeElsewhere(@TempDir Path dir) throws IOException {
+        ChessMove e4 = move(2, 5, 4, 5);
+        Path file = dir.resolve("book.bin");
+        OpeningBook.write(file, Map.of(0x463B96181691FC9CL, List.of(new OpeningBook.BookMove(e4, 1))));
+        Assertions.assertEquals(e4, OpeningBook.open(file).lookup(new ChessGame()).get(0).move());
+    }
+}
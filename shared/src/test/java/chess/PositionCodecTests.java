@@ -0,0 +1,82 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PositionCodecTests {
+
+    private static void assertSameGame(ChessGame expected, ChessGame actual) {
+        Assertions.assertEquals(expected.getBoard(), actual.getBoard());
+        Assertions.assertEquals(expected.getTeamTurn(), actual.getTeamTurn());
+        Assertions.assertEquals(expected.getHalfmoveClock(), actual.getHalfmoveClock());
+        Assertions.assertEquals(expected.getFullmoveNumber(), actual.getFullmoveNumber());
+    }
+
+    @Test
+    public void startingPositionRoundTrips() {
+        ChessGame game = new ChessGame();
+        byte[] bytes = PositionCodec.encode(game);
+        Assertions.assertEquals(PositionCodec.SIZE, bytes.length);
+        Assertions.assertEquals(0xFFFF00000000FFFFL, ByteBuffer.wrap(bytes).getLong());
+        assertSameGame(game, PositionCodec.decode(bytes));
+    }
+
+    @Test
+    public void randomGamesRoundTrip() throws InvalidMoveException {
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.SIZE * 20 * 81);
+        List<ChessGame> played = new ArrayList<>();
+        RandomGames.forEachPosition(24, 20, 80, (game, moves) -> {
+            PositionCodec.encode(game, buffer);
+            played.add(new ChessGame(game));
+        });
+        //the positions sit back to back in one buffer
+        Assertions.assertEquals(played.size() * PositionCodec.SIZE, buffer.position());
+        buffer.flip();
+        for (ChessGame expected : played) {
+            assertSameGame(expected, PositionCodec.decode(buffer));
+        }
+        Assertions.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void finishedGameKeepsNoTurn() {
+        ChessGame game = Fen.parse("7k/8/8/8/8/8/8/R6K w - - 12 40");
+        game.setTeamTurn(ChessGame.TeamColor.NONE);
+        ChessGame decoded = PositionCodec.decode(PositionCodec.encode(game));
+        Assertions.assertEquals(ChessGame.TeamColor.NONE, decoded.getTeamTurn());
+        Assertions.assertEquals(game.getBoard(), decoded.getBoard());
+    }
+
+    @Test
+    public void rejectsBadInput() {
+        Assertions.assertThrows(BufferOverflowException.class,
+                () -> PositionCodec.encode(new ChessGame(), ByteBuffer.allocate(PositionCodec.SIZE - 1)));
+        byte[] bytes = PositionCodec.encode(new ChessGame());
+        bytes[8] = (byte) 0x77; //piece code 7 is not a piece type
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(bytes));
+
+        ChessBoard crowded = new ChessBoard();
+        for (int square = 0; square < 33; square++) {
+            crowded.addPiece(ChessPosition.of(square), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(crowded);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.encode(game));
+    }
+
+    @Test
+    public void encodingLeavesTheGameAlone() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        game.getBoard().addPiece(new ChessPosition(2, 1), null);
+        String before = new Gson().toJson(game);
+        PositionCodec.encode(game);
+        Assertions.assertEquals(before, new Gson().toJson(game));
+    }
+}
@@ -0,0 +1,48 @@
+package chess;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded random games for tests that check something at every position of
+ * many games
+ */
+final class RandomGames {
+
+    interface PositionCheck {
+        /**
+         * @param game  the game at the position; the check may look at it and
+         *              make and take back moves on its board, but must leave it
+         *              as it was
+         * @param moves every legal move for the side to move, empty once the
+         *              game is over
+         */
+        void accept(ChessGame game, List<ChessMove> moves);
+    }
+
+    private RandomGames() {
+    }
+
+    /**
+     * Plays games from the starting position with moves picked at random and
+     * hands every position to the check, starting position included, before
+     * the next move is picked. A game ends after plies moves or when the side
+     * to move has none left.
+     *
+     * @param seed the same seed always plays the same games
+     */
+    static void forEachPosition(long seed, int games, int plies, PositionCheck check) throws InvalidMoveException {
+        Random random = new Random(seed);
+        for (int gameNumber = 0; gameNumber < games; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ; ply++) {
+                List<ChessMove> moves = List.copyOf(game.getAllMoves(game.getTeamTurn()));
+                check.accept(game, moves);
+                if (ply == plies || moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SearchTests {
+
+    private static ChessGame game(String diagram, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(Perft.parseDiagram(diagram));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    @Test
+    public void findsBackRankMate() {
+        ChessGame game = game("""
+                | | | | | | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                |R| | | | | |K| |
+                """, ChessGame.TeamColor.WHITE);
+        Search.Result result = new Search().search(game, Search.Limits.ofDepth(4));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                result.bestMove());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    public void takesHangingQueen() {
+        ChessGame game = game("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |q| | | | |
+                | | | | | |N| | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.WHITE);
+        Search.Result result = new Search().search(game, Search.Limits.ofDepth(3));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(4, 6), new ChessPosition(5, 4), null),
+                result.bestMove());
+        Assertions.assertTrue(result.score() > 0);
+    }
+
+    @Test
+    public void principalVariationIsPlayable() throws InvalidMoveException {
+        ChessGame game = Perft.REFERENCE_POSITIONS.get(2).toGame();
+        String before = game.getBoard().toString();
+        Search.Result result = new Search().search(game, Search.Limits.ofDepth(4));
+        Assertions.assertEquals(before, game.getBoard().toString(), "search must not touch the game");
+        Assertions.assertEquals(4, result.depth());
+        Assertions.assertFalse(result.principalVariation().isEmpty());
+        Assertions.assertEquals(result.bestMove(), result.principalVariation().get(0));
+        for (ChessMove move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+    }
+
+    @Test
+    public void stopsAtNodeBudget() {
+        Search.Result result = new Search().search(new ChessGame(), Search.Limits.ofNodes(5000));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.depth() >= 1);
+        Assertions.assertTrue(result.nodes() <= 5000 || result.depth() == 1);
+    }
+
+    @Test
+    public void stopsAtTimeBudget() {
+        Search.Result result = new Search().search(new ChessGame(), Search.Limits.ofTime(200));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.millis() < 1000, "took " + result.millis() + " ms");
+    }
+
+    @Test
+    public void noMoveWhenMated() {
+        ChessGame game = game("""
+                |R| | | | | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | |K| |
+                """, ChessGame.TeamColor.BLACK);
+        Search.Result result = new Search().search(game, Search.Limits.ofDepth(3));
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertEquals(-Search.MATE, result.score());
+    }
+
+    @Test
+    public void parallelSearchFindsMate() {
+        ChessGame game = game("""
+                | | | | | | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                |R| | | | | |K| |
+                """, ChessGame.TeamColor.WHITE);
+        try (ParallelSearch search = new ParallelSearch(3, new TranspositionTable(4))) {
+            Search.Result result = search.search(game, Search.Limits.ofDepth(4));
+            Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                    result.bestMove());
+            Assertions.assertEquals(1, result.mateIn());
+        }
+    }
+
+    @Test
+    public void parallelSearchIsReusable() {
+        ChessGame game = Perft.REFERENCE_POSITIONS.get(2).toGame();
+        String before = game.getBoard().toString();
+        try (ParallelSearch search = new ParallelSearch(4, new TranspositionTable(4))) {
+            for (int i = 0; i < 3; i++) {
+                Search.Result result = search.search(game, Search.Limits.ofTime(100));
+                Assertions.assertNotNull(result.bestMove());
+                Assertions.assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+            }
+        }
+        Assertions.assertEquals(before, game.getBoard().toString());
+    }
+}
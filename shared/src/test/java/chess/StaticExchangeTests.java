@@ -0,0 +1,141 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+public class StaticExchangeTests {
+
+    private static ChessMove capture(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    public void undefendedPawnIsFree() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | |r| |k| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |p| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R| |K| |
+                """);
+        //the black rook on e8 defends through the pawn only once the pawn is gone
+        Assertions.assertEquals(100 - 500, StaticExchange.evaluate(board, capture(1, 5, 5, 5)));
+
+        board.addPiece(new ChessPosition(8, 5), null);
+        Assertions.assertEquals(100, StaticExchange.evaluate(board, capture(1, 5, 5, 5)));
+    }
+
+    @Test
+    public void batteryWinsTheExchange() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | |r| |k| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |p| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R| | | |
+                | | | | |R| |K| |
+                """);
+        //RxP RxR RxR: black does better not to recapture at all
+        Assertions.assertEquals(100, StaticExchange.evaluate(board, capture(2, 5, 5, 5)));
+    }
+
+    @Test
+    public void knightTakingDefendedPawnLoses() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | | | |k| |
+                | | | | | | | | |
+                | | | |p| | | | |
+                | | | | |p| | | |
+                | | | | | | | | |
+                | | | |N| | | | |
+                | | | | | | | | |
+                | | | | | | |K| |
+                """);
+        Assertions.assertEquals(100 - 320, StaticExchange.evaluate(board, capture(3, 4, 5, 5)));
+    }
+
+    @Test
+    public void findsPiecesEnPrise() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | | | |k| |
+                | | | | | | | | |
+                | | | |p| | | | |
+                | | |Q| |n| | | |
+                | | | | | | |p| |
+                | | | | | |B| | |
+                | | | | | | | | |
+                |N| | | | | |K| |
+                """);
+        //the queen is attacked by a pawn, the bishop is undefended and attacked by a pawn;
+        //the knight on a1 is not attacked at all
+        Assertions.assertEquals(Set.of(new ChessPosition(5, 3), new ChessPosition(3, 6)),
+                Set.copyOf(StaticExchange.enPrisePieces(board, ChessGame.TeamColor.WHITE)));
+        //the black knight on e5 is attacked by the queen but defended by the pawn on d6
+        Assertions.assertEquals(0, StaticExchange.threat(board, new ChessPosition(5, 5)));
+        //the pawn on d6 hangs to the queen; the one on g4 is defended by the knight
+        Assertions.assertEquals(Set.of(new ChessPosition(6, 4)),
+                Set.copyOf(StaticExchange.enPrisePieces(board, ChessGame.TeamColor.BLACK)));
+    }
+
+    @Test
+    public void pawnTakingDefendedKnightWinsTheDifference() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | | | |k| |
+                | | | | | | | | |
+                | | | |p| | | | |
+                | | | | |n| | | |
+                | | | |P| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | |K| |
+                """);
+        //PxN PxP: white wins a knight for a pawn
+        Assertions.assertEquals(320 - 100, StaticExchange.evaluate(board, capture(4, 4, 5, 5)));
+        Assertions.assertEquals(320 - 100, StaticExchange.threat(board, new ChessPosition(5, 5)));
+        //a rook taking the same knight loses the exchange
+        board.addPiece(new ChessPosition(4, 4), null);
+        board.addPiece(new ChessPosition(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(320 - 500, StaticExchange.evaluate(board, capture(1, 5, 5, 5)));
+    }
+
+    @Test
+    public void defendedQueenAttackedByPawn() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | | | |k| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |p| | | |
+                | | | |Q| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |R| | |K| |
+                """);
+        Assertions.assertEquals(900 - 100, StaticExchange.threat(board, new ChessPosition(4, 4)));
+        Assertions.assertEquals(900 - 100, StaticExchange.evaluate(board, capture(5, 5, 4, 4)));
+        Assertions.assertEquals(Set.of(new ChessPosition(4, 4)),
+                Set.copyOf(StaticExchange.enPrisePieces(board, ChessGame.TeamColor.WHITE)));
+    }
+
+    @Test
+    public void longExchangeOnDefendedPawn() {
+        ChessBoard board = Perft.parseDiagram("""
+                | | | | |r| |k| |
+                | | | | |r| | | |
+                | | | | | | | | |
+                | | | | |p| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R| | | |
+                | | | | |Q| |K| |
+                """);
+        //RxP RxR QxR RxQ: white stops after RxP RxR, a rook for a pawn
+        Assertions.assertEquals(100 - 500, StaticExchange.evaluate(board, capture(2, 5, 5, 5)));
+    }
+}
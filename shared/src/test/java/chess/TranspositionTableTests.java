@@ -0,0 +1,140 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TranspositionTableTests {
+
+    @Test
+    public void storeAndProbe() {
+        var table = new TranspositionTable(1);
+        long key = new ChessGame().getPositionKey();
+        Assertions.assertEquals(0, table.probe(key));
+
+        table.store(key, 1234, -57, 6, TranspositionTable.Bound.LOWER);
+        long entry = table.probe(key);
+        Assertions.assertEquals(1234, TranspositionTable.move(entry));
+        Assertions.assertEquals(-57, TranspositionTable.score(entry));
+        Assertions.assertEquals(6, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.Bound.LOWER, TranspositionTable.bound(entry));
+        Assertions.assertEquals(1, table.getHits());
+        Assertions.assertEquals(1, table.getMisses());
+    }
+
+    @Test
+    public void shallowEntryIsEvictedFirst() {
+        var table = new TranspositionTable(1);
+        long buckets = table.getCapacity() / 2;
+        //three keys that land in the same bucket
+        long deep = 5;
+        long shallow = 5 + buckets;
+        long incoming = 5 + 2 * buckets;
+        table.store(deep, 0, 10, 9, TranspositionTable.Bound.EXACT);
+        table.store(shallow, 0, 20, 1, TranspositionTable.Bound.EXACT);
+        table.store(incoming, 0, 30, 4, TranspositionTable.Bound.EXACT);
+
+        Assertions.assertNotEquals(0, table.probe(deep));
+        Assertions.assertEquals(0, table.probe(shallow));
+        Assertions.assertNotEquals(0, table.probe(incoming));
+    }
+
+    @Test
+    public void oldEntriesAgeOut() {
+        var table = new TranspositionTable(1);
+        long buckets = table.getCapacity() / 2;
+        table.store(7, 0, 0, 9, TranspositionTable.Bound.EXACT);
+        table.newSearch();
+        table.store(7 + buckets, 0, 0, 3, TranspositionTable.Bound.EXACT);
+        //the depth 9 entry is from an older search, so it goes before the fresh depth 3 one
+        table.store(7 + 2 * buckets, 0, 0, 1, TranspositionTable.Bound.EXACT);
+        Assertions.assertEquals(0, table.probe(7));
+        Assertions.assertNotEquals(0, table.probe(7 + buckets));
+    }
+
+    /**
+     * The move and score every writer stores for a key, so a reader can tell
+     * whether what it got back really belongs to the key it asked for
+     */
+    private static int moveFor(long key) {
+        return (int) (key >>> 20) & 0xFFFF;
+    }
+
+    private static int scoreFor(long key) {
+        return (short) (key >>> 40);
+    }
+
+    @Test
+    public void concurrentStoresNeverMixUpEntries() throws InterruptedException {
+        var table = new TranspositionTable(1);
+        long buckets = table.getCapacity() / 2;
+        //64 keys per bucket over 8 buckets, so writers keep overwriting each other's slots
+        long[] keys = new long[512];
+        SplittableRandom seeds = new SplittableRandom(5);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (seeds.nextLong() & ~(buckets - 1)) | (i & 7);
+        }
+        AtomicLong wrongHits = new AtomicLong();
+        AtomicLong goodHits = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    long key = keys[random.nextInt(keys.length)];
+                    if (random.nextBoolean()) {
+                        table.store(key, moveFor(key), scoreFor(key), random.nextInt(20),
+                                TranspositionTable.Bound.EXACT);
+                    } else {
+                        long data = table.probe(key);
+                        if (data == 0) {
+                            continue;
+                        }
+                        if (TranspositionTable.move(data) == moveFor(key)
+                                && TranspositionTable.score(data) == scoreFor(key)) {
+                            goodHits.incrementAndGet();
+                        } else {
+                            wrongHits.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(0, wrongHits.get());
+        Assertions.assertTrue(goodHits.get() > 0);
+        Assertions.assertEquals(table.getHits(), goodHits.get());
+    }
+
+    @Test
+    public void tornEntryReadsAsMiss() throws ReflectiveOperationException {
+        var table = new TranspositionTable(1);
+        var other = new TranspositionTable(1);
+        long buckets = table.getCapacity() / 2;
+        long first = 3;
+        long second = 3 + buckets;
+        table.store(first, 11, 100, 5, TranspositionTable.Bound.EXACT);
+        other.store(second, 22, -100, 9, TranspositionTable.Bound.EXACT);
+        Field field = TranspositionTable.class.getDeclaredField("table");
+        field.setAccessible(true);
+        long[] slots = (long[]) field.get(table);
+        long[] otherSlots = (long[]) field.get(other);
+        //a writer storing the second key got its data word in, but not yet its key word
+        int slot = 3 * 4;
+        slots[slot + 1] = otherSlots[slot + 1];
+
+        Assertions.assertEquals(0, table.probe(first));
+        Assertions.assertEquals(0, table.probe(second));
+        //once the key word lands, the entry is whole again
+        slots[slot] = otherSlots[slot];
+        Assertions.assertEquals(22, TranspositionTable.move(table.probe(second)));
+    }
+}